@@ -0,0 +1 @@
+DROP TABLE IF EXISTS clean_job_checkpoint;
@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS clean_job_checkpoint
+(
+    job_name   VARCHAR(64) NOT NULL,
+    project_id BIGINT      NOT NULL,
+    last_key   BIGINT      NOT NULL,
+    cutoff     TIMESTAMP   NOT NULL,
+    completed  BOOLEAN     NOT NULL,
+    updated_at TIMESTAMP   NOT NULL DEFAULT now(),
+    PRIMARY KEY (job_name, project_id)
+);
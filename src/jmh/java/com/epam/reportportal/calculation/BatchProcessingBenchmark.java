@@ -0,0 +1,85 @@
+package com.epam.reportportal.calculation;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+
+/**
+ * Throughput of {@link BatchProcessing#add} with concurrent producers, comparing accumulation
+ * modes. Processing only consumes the batch, so the benchmark measures accumulation and hand-off.
+ * Producers are measured with 1, 8 and 50 threads, the last one being the contention case the
+ * striped mode is meant for, against different amounts of expected producers the stripes are sized
+ * by. The amount is ignored in {@link BatchProcessing.Mode#SYNCHRONIZED} mode.
+ *
+ * <p>Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BatchProcessingBenchmark {
+
+  private static final Integer ELEMENT = 42;
+
+  @Param({"SYNCHRONIZED", "STRIPED"})
+  public BatchProcessing.Mode mode;
+
+  @Param({"300"})
+  public int batchSize;
+
+  @Param({"1", "8", "64"})
+  public int concurrency;
+
+  private ScheduledExecutorService executor;
+  private BatchProcessing<Integer> processing;
+
+  @Setup(Level.Trial)
+  public void setUp(Blackhole blackhole) {
+    executor = Executors.newSingleThreadScheduledExecutor();
+    processing = new BatchProcessing<>(batchSize, 1000, new ConcurrentTaskScheduler(executor),
+        mode, concurrency) {
+      @Override
+      protected void process(List<Integer> objectList) {
+        blackhole.consume(objectList);
+      }
+    };
+    processing.start();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    processing.stop();
+    executor.shutdownNow();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void addSingleProducer() {
+    processing.add(ELEMENT);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void addEightProducers() {
+    processing.add(ELEMENT);
+  }
+
+  @Benchmark
+  @Threads(50)
+  public void addFiftyProducers() {
+    processing.add(ELEMENT);
+  }
+}
@@ -0,0 +1,74 @@
+package com.epam.reportportal.elastic;
+
+import com.epam.reportportal.log.LogMessage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Builds a bulk request body of a batch of logs: the former way, a {@link JSONObject} per log
+ * concatenated into a {@link String} and encoded to bytes, against streaming it with
+ * {@link LogBulkWriter}. Allocation per operation is reported by the gc profiler of the build.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BulkBodyBenchmark {
+
+  private static final String CREATE_ACTION = "{\"create\":{ }}\n";
+
+  @Param({"300"})
+  public int batchSize;
+
+  @Param({"256", "4096"})
+  public int messageSize;
+
+  private List<LogMessage> logs;
+  private final DiscardingOutputStream outputStream = new DiscardingOutputStream();
+
+  @Setup
+  public void setUp() {
+    char[] message = new char[messageSize];
+    Arrays.fill(message, 'x');
+    byte[] messageBytes = new String(message).getBytes(StandardCharsets.UTF_8);
+    long now = System.currentTimeMillis() * 1000;
+    logs = new ArrayList<>(batchSize);
+    for (int i = 0; i < batchSize; i++) {
+      logs.add(new LogMessage(i + 1, now + i, messageBytes, 1000L + i, 42L, 1L));
+    }
+  }
+
+  @Benchmark
+  public byte[] concatenatedString() {
+    String body = "";
+    for (LogMessage logMessage : logs) {
+      JSONObject document = new JSONObject();
+      document.put("id", logMessage.getId());
+      document.put("message", logMessage.getLogMessage());
+      document.put("itemId", logMessage.getItemId());
+      document.put("@timestamp", logMessage.getLogTime());
+      document.put("launchId", logMessage.getLaunchId());
+      body = body + CREATE_ACTION + document + "\n";
+    }
+    return body.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public long streamed() throws IOException {
+    outputStream.reset();
+    LogBulkWriter.write(logs, outputStream);
+    return outputStream.count();
+  }
+}
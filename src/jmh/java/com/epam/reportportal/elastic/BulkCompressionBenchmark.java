@@ -0,0 +1,81 @@
+package com.epam.reportportal.elastic;
+
+import com.epam.reportportal.log.LogMessage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.StreamingHttpOutputMessage;
+
+/**
+ * Streams a bulk request body of a batch of stack-trace-like logs as is and compressed by
+ * {@link RequestBodyEncoder}, reporting CPU time per body and bytes sent on the wire.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BulkCompressionBenchmark {
+
+  private static final String STACK_TRACE_LINE =
+      "\tat com.epam.reportportal.service.LaunchService.finish(LaunchService.java:%d)\n";
+
+  @Param({"300"})
+  public int batchSize;
+
+  @Param({"-1", "0"})
+  public long compressionThreshold;
+
+  private StreamingHttpOutputMessage.Body body;
+  private final DiscardingOutputStream outputStream = new DiscardingOutputStream();
+
+  /**
+   * Bytes written per body, reported next to the time.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class WireBytes {
+
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      bytes = 0;
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    long now = System.currentTimeMillis() * 1000;
+    List<LogMessage> logs = new ArrayList<>(batchSize);
+    for (int i = 0; i < batchSize; i++) {
+      StringBuilder message = new StringBuilder("java.lang.IllegalStateException: step failed\n");
+      for (int line = 0; line < 20; line++) {
+        message.append(STACK_TRACE_LINE.formatted(100 + (i + line) % 50));
+      }
+      logs.add(new LogMessage(i + 1, now + i, message.toString().getBytes(StandardCharsets.UTF_8),
+          1000L + i, 42L, 1L));
+    }
+    long size = LogBulkWriter.estimateSize(logs);
+    body = RequestBodyEncoder.encode(outputStream -> LogBulkWriter.write(logs, outputStream),
+        size, compressionThreshold, new HttpHeaders());
+  }
+
+  @Benchmark
+  public void writeBody(WireBytes wireBytes) throws IOException {
+    outputStream.reset();
+    body.writeTo(outputStream);
+    wireBytes.bytes += outputStream.count();
+  }
+}
@@ -0,0 +1,30 @@
+package com.epam.reportportal.elastic;
+
+import java.io.OutputStream;
+
+/**
+ * Output stream of benchmarks counting written bytes and dropping them, so request bodies are
+ * measured without buffering them.
+ */
+final class DiscardingOutputStream extends OutputStream {
+
+  private long count;
+
+  @Override
+  public void write(int b) {
+    count++;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    count += len;
+  }
+
+  long count() {
+    return count;
+  }
+
+  void reset() {
+    count = 0;
+  }
+}
@@ -0,0 +1,74 @@
+package com.epam.reportportal.elastic;
+
+import com.epam.reportportal.log.LogMessage;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Writes {@code @timestamp} fields of a batch of logs: the former way, formatting a
+ * {@link java.time.LocalDateTime} built from the primitive log time, against writing epoch millis
+ * as a number, as {@link LogBulkWriter} does. Allocation per operation is reported by the gc
+ * profiler of the build.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LogTimestampBenchmark {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory()
+      .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+  @Param({"300"})
+  public int batchSize;
+
+  private List<LogMessage> logs;
+  private final DiscardingOutputStream outputStream = new DiscardingOutputStream();
+
+  @Setup
+  public void setUp() {
+    long now = System.currentTimeMillis() * 1000;
+    logs = new ArrayList<>(batchSize);
+    for (int i = 0; i < batchSize; i++) {
+      logs.add(new LogMessage(i + 1, now + i * 1_001L, null, 1000L + i, 42L, 1L));
+    }
+  }
+
+  @Benchmark
+  public long formattedString() throws IOException {
+    outputStream.reset();
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream)) {
+      for (LogMessage logMessage : logs) {
+        generator.writeStartObject();
+        generator.writeStringField("@timestamp", logMessage.getLogTime().toString());
+        generator.writeEndObject();
+      }
+    }
+    return outputStream.count();
+  }
+
+  @Benchmark
+  public long epochMillis() throws IOException {
+    outputStream.reset();
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream)) {
+      for (LogMessage logMessage : logs) {
+        generator.writeStartObject();
+        generator.writeNumberField("@timestamp",
+            Math.floorDiv(logMessage.getLogTimeMicros(), 1_000L));
+        generator.writeEndObject();
+      }
+    }
+    return outputStream.count();
+  }
+}
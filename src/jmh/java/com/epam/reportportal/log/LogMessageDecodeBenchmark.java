@@ -0,0 +1,54 @@
+package com.epam.reportportal.log;
+
+import com.epam.reportportal.config.JacksonConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Decodes a log message body in JSON, as sent by existing producers, against the compact binary
+ * format of {@link LogMessageBinaryConverter}. Allocation per operation is reported by the gc
+ * profiler of the build.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LogMessageDecodeBenchmark {
+
+  @Param({"256", "4096"})
+  public int messageSize;
+
+  private ObjectReader jsonReader;
+  private byte[] jsonBody;
+  private byte[] binaryBody;
+
+  @Setup
+  public void setUp() throws IOException {
+    LogMessage logMessage = new LogMessage(123_456L, LocalDateTime.of(2024, 5, 1, 10, 15, 30),
+        "x".repeat(messageSize), 1000L, 42L, 1L);
+    ObjectMapper objectMapper = new JacksonConfiguration().objectMapper();
+    jsonReader = objectMapper.readerFor(LogMessage.class);
+    jsonBody = objectMapper.writeValueAsBytes(logMessage);
+    binaryBody = LogMessageBinaryConverter.encode(logMessage);
+  }
+
+  @Benchmark
+  public LogMessage json() throws IOException {
+    return jsonReader.readValue(jsonBody);
+  }
+
+  @Benchmark
+  public LogMessage binary() {
+    return LogMessageBinaryConverter.decode(binaryBody);
+  }
+}
@@ -0,0 +1,77 @@
+package com.epam.reportportal.calculation;
+
+/**
+ * Adjusts batch size and timeout within configured bounds by the outcome of processed batches,
+ * using additive increase and multiplicative decrease. A full batch processed within the target
+ * latency grows the batch size by a fixed step, while a failed, slow or too heavy batch halves it.
+ * The timeout follows the batch size proportionally, so bigger batches get more time to fill up.
+ */
+public class AdaptiveBatchController {
+
+  private static final double DECREASE_FACTOR = 0.5;
+  private static final int INCREASE_STEPS = 20;
+
+  private final int minBatchSize;
+  private final int maxBatchSize;
+  private final long minTimeout;
+  private final long maxTimeout;
+  private final long targetLatency;
+  private final long maxBatchBytes;
+  private final int increaseStep;
+  private volatile int batchSize;
+  private volatile long timeout;
+
+  /**
+   * @param minBatchSize  Lower bound of batch size
+   * @param maxBatchSize  Upper bound of batch size
+   * @param minTimeout    Lower bound of timeout in milliseconds
+   * @param maxTimeout    Upper bound of timeout in milliseconds
+   * @param targetLatency Processing time in milliseconds a batch is expected to fit in
+   * @param maxBatchBytes Payload size a batch is expected to fit in, 0 means no limit
+   */
+  public AdaptiveBatchController(int minBatchSize, int maxBatchSize, long minTimeout,
+      long maxTimeout, long targetLatency, long maxBatchBytes) {
+    if (minBatchSize <= 0 || maxBatchSize < minBatchSize || minTimeout < 0
+        || maxTimeout < minTimeout) {
+      throw new IllegalArgumentException("Batch size and timeout bounds are invalid");
+    }
+    this.minBatchSize = minBatchSize;
+    this.maxBatchSize = maxBatchSize;
+    this.minTimeout = minTimeout;
+    this.maxTimeout = maxTimeout;
+    this.targetLatency = targetLatency;
+    this.maxBatchBytes = maxBatchBytes;
+    this.increaseStep = Math.max(1, (maxBatchSize - minBatchSize) / INCREASE_STEPS);
+    this.batchSize = minBatchSize;
+    this.timeout = minTimeout;
+  }
+
+  /**
+   * Records outcome of a processed batch.
+   *
+   * @param size    Amount of elements in the batch
+   * @param bytes   Estimated payload size of the batch
+   * @param latency Processing time in milliseconds
+   * @param failed  Whether processing failed
+   */
+  public synchronized void onBatchProcessed(int size, long bytes, long latency, boolean failed) {
+    if (failed || latency > targetLatency || (maxBatchBytes > 0 && bytes > maxBatchBytes)) {
+      batchSize = Math.max(minBatchSize, (int) (batchSize * DECREASE_FACTOR));
+    } else if (size >= batchSize) {
+      batchSize = Math.min(maxBatchSize, batchSize + increaseStep);
+    } else {
+      return;
+    }
+    int range = maxBatchSize - minBatchSize;
+    timeout = range == 0 ? minTimeout
+        : minTimeout + (maxTimeout - minTimeout) * (batchSize - minBatchSize) / range;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public long getTimeout() {
+    return timeout;
+  }
+}
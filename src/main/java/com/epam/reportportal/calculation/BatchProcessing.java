@@ -1,66 +1,458 @@
 package com.epam.reportportal.calculation;
 
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.scheduling.TaskScheduler;
 
 /**
- * Batch processing, grouping in batch based on amount or time unit.
+ * Batch processing, grouping in batch based on amount, optional total weight or time unit.
+ *
+ * <p>In {@link Mode#SYNCHRONIZED} mode elements are collected into a single list guarded by a
+ * monitor and a full batch is processed on the thread that added the last element, while a
+ * single long-lived ticker processes the list once its oldest element waited for the timeout.
+ * Processing is guarded by a lock, so size and timeout triggers never overlap. Weight and add
+ * time of each element are kept next to it, so an element is weighed once and elements left after
+ * a partial batch linger from the time they were added. In
+ * {@link Mode#STRIPED} mode elements are collected into lock-free striped buffers and handed off
+ * to a dedicated flusher thread, so producers never block on processing. The ticker and the
+ * flusher are started by {@link #start()}, once the instance is fully constructed.
+ *
+ * <p>Amount of pending elements, buffered and being processed, is tracked against optional
+ * water marks: {@link #onHighWaterMark()} is called once it reaches the high-water mark and
+ * {@link #onLowWaterMark()} once it drops back to the low-water mark. The amount is counted with
+ * a {@link LongAdder}, so producers don't contend on a single counter. Water marks are not
+ * signalled once draining on stop begins, so paused producers stay paused.
+ *
+ * <p>As a {@link SmartLifecycle} bean it is stopped after listener containers of the default
+ * phase: {@link #beforeDrain()} is called, buffered elements are processed within the shutdown
+ * timeout and then {@link #afterDrain()} is called. A flusher still processing a batch once the
+ * timeout elapses is interrupted, and {@link #afterDrain()} is skipped if a batch is still being
+ * processed after that, so resources the batch uses are not released under it.
  *
  * @param <T>
  */
-public abstract class BatchProcessing<T> {
+public abstract class BatchProcessing<T> implements SmartLifecycle {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BatchProcessing.class);
+  private static final int LINGER_TICKS_PER_TIMEOUT = 10;
+  private static final long MIN_LINGER_TICK = 10;
+  private static final long DEFAULT_SHUTDOWN_TIMEOUT = 20_000;
+  private static final int INITIAL_CAPACITY = 16;
+  private static final long FLUSHER_STOP_TIMEOUT = 1_000;
+
+  /**
+   * Accumulation mode.
+   */
+  public enum Mode {
+    SYNCHRONIZED,
+    STRIPED
+  }
 
   private final TaskScheduler scheduler;
+  private final Mode mode;
   private List<T> objectList;
-  private volatile ScheduledFuture<?> scheduledTask;
-  private int batchSize;
-  private long timeout;
+  private long[] objectWeights;
+  private long[] objectAddedTimes;
+  private long objectListWeight;
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private StripedBuffer<T> stripedBuffer;
+  private volatile Thread flusher;
+  private ScheduledFuture<?> lingerTask;
+  private volatile boolean running;
+  private volatile boolean draining;
+  private volatile long shutdownTimeout = DEFAULT_SHUTDOWN_TIMEOUT;
+  private final LongAdder pending = new LongAdder();
+  private final AtomicBoolean saturated = new AtomicBoolean();
+  private volatile int batchSize;
+  private volatile long timeout;
+  private volatile int highWaterMark;
+  private volatile int lowWaterMark;
+  private volatile ToLongFunction<T> weigher;
+  private volatile long maxBatchWeight;
 
   public BatchProcessing(int batchSize, long timeout, TaskScheduler scheduler) {
+    this(batchSize, timeout, scheduler, Mode.SYNCHRONIZED, 1);
+  }
+
+  /**
+   * @param batchSize   Amount of elements that triggers processing
+   * @param timeout     Max time in milliseconds an element waits for processing
+   * @param scheduler   Scheduler for the linger ticker in {@link Mode#SYNCHRONIZED} mode
+   * @param mode        Accumulation mode
+   * @param concurrency Expected amount of producer threads, used to size stripes in
+   *                    {@link Mode#STRIPED} mode
+   */
+  public BatchProcessing(int batchSize, long timeout, TaskScheduler scheduler, Mode mode,
+      int concurrency) {
     if (timeout < 0 || scheduler == null) {
       throw new IllegalArgumentException(
           "Timeout must be greater than 0 and scheduler must be not null");
     }
-    objectList = new ArrayList<>();
     this.batchSize = batchSize;
     this.timeout = timeout;
     this.scheduler = scheduler;
-    this.scheduledTask = this.scheduler.schedule(this::processAndSchedule, getNextTime());
+    this.mode = mode;
+    if (mode == Mode.STRIPED) {
+      this.stripedBuffer = new StripedBuffer<>(concurrency);
+    } else {
+      this.objectList = new ArrayList<>();
+      this.objectWeights = new long[INITIAL_CAPACITY];
+      this.objectAddedTimes = new long[INITIAL_CAPACITY];
+    }
+  }
+
+  /**
+   * Enables backpressure signalling.
+   *
+   * @param highWaterMark Amount of pending elements that triggers {@link #onHighWaterMark()}, 0
+   *                      disables signalling
+   * @param lowWaterMark  Amount of pending elements that triggers {@link #onLowWaterMark()}
+   */
+  public void setWaterMarks(int highWaterMark, int lowWaterMark) {
+    if (highWaterMark > 0 && (lowWaterMark < 0 || lowWaterMark >= highWaterMark)) {
+      throw new IllegalArgumentException(
+          "Low-water mark must be not negative and less than high-water mark");
+    }
+    this.highWaterMark = highWaterMark;
+    this.lowWaterMark = lowWaterMark;
+  }
+
+  /**
+   * Enables processing by total weight of buffered elements, in addition to their amount.
+   *
+   * @param weigher        Function estimating weight of an element
+   * @param maxBatchWeight Total weight that triggers processing, 0 disables weighing
+   */
+  public void setWeigher(ToLongFunction<T> weigher, long maxBatchWeight) {
+    this.weigher = maxBatchWeight > 0 ? weigher : null;
+    this.maxBatchWeight = maxBatchWeight;
+  }
+
+  /**
+   * @param shutdownTimeout Max time in milliseconds to process buffered elements on stop
+   */
+  public void setShutdownTimeout(long shutdownTimeout) {
+    this.shutdownTimeout = shutdownTimeout;
   }
 
-  private Date getNextTime() {
-    return new Date(System.currentTimeMillis() + this.timeout);
+  /**
+   * @return {@code true} while buffered elements are being processed on stop
+   */
+  public boolean isDraining() {
+    return draining;
+  }
+
+  protected TaskScheduler getScheduler() {
+    return scheduler;
+  }
+
+  public int getPending() {
+    return pending.intValue();
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Changes amount of elements that triggers processing, applies to the next added element.
+   */
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public long getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * Changes max time in milliseconds an element waits for processing, applies to the next check
+   * of buffered elements.
+   */
+  public void setTimeout(long timeout) {
+    this.timeout = timeout;
   }
 
   public void add(T message) {
+    pending.increment();
+    if (highWaterMark > 0 && !draining && !saturated.get() && pending.sum() >= highWaterMark
+        && saturated.compareAndSet(false, true)) {
+      onHighWaterMark();
+    }
+    final ToLongFunction<T> currentWeigher = weigher;
+    long weight = currentWeigher == null ? 0 : currentWeigher.applyAsLong(message);
+    if (mode == Mode.STRIPED) {
+      if (stripedBuffer.add(message, weight, batchSize, maxBatchWeight)) {
+        LockSupport.unpark(flusher);
+      }
+      return;
+    }
+    boolean full;
     synchronized (this) {
+      int index = this.objectList.size();
+      if (index == this.objectWeights.length) {
+        this.objectWeights = Arrays.copyOf(this.objectWeights, index * 2);
+        this.objectAddedTimes = Arrays.copyOf(this.objectAddedTimes, index * 2);
+      }
       this.objectList.add(message);
-      if (this.objectList.size() >= this.batchSize) {
-        processAndSchedule();
+      this.objectWeights[index] = weight;
+      this.objectAddedTimes[index] = System.nanoTime();
+      this.objectListWeight += weight;
+      full = this.objectList.size() >= this.batchSize || isFull(this.objectListWeight);
+    }
+    if (full) {
+      flushLock.lock();
+      try {
+        List<T> batch = takeBatch(false);
+        if (batch != null) {
+          processPending(batch);
+        }
+      } finally {
+        flushLock.unlock();
       }
     }
   }
 
-  private void processAndSchedule() {
-    List<T> copyObjectList;
+  private boolean isFull(long weight) {
+    return maxBatchWeight > 0 && weight >= maxBatchWeight;
+  }
+
+  /**
+   * Takes a batch of buffered elements if they are full or the oldest of them waited for the
+   * timeout. Must be called under the flush lock, so batches are processed in the order they are
+   * taken.
+   *
+   * @param force Whether to take buffered elements regardless of their amount and age
+   * @return Batch to process or {@code null} if nothing is due
+   */
+  private List<T> takeBatch(boolean force) {
     synchronized (this) {
-      copyObjectList = new ArrayList<>(this.objectList);
-      this.objectList.clear();
+      if (this.objectList.isEmpty()) {
+        return null;
+      }
+      boolean lingered = System.nanoTime() - this.objectAddedTimes[0]
+          >= TimeUnit.MILLISECONDS.toNanos(this.timeout);
+      if (!force && !lingered && this.objectList.size() < this.batchSize
+          && !isFull(this.objectListWeight)) {
+        return null;
+      }
+      int count = 0;
+      long batchWeight = 0;
+      while (count < this.objectList.size() && count < this.batchSize && !isFull(batchWeight)) {
+        batchWeight += this.objectWeights[count];
+        count++;
+      }
+      List<T> taken = this.objectList.subList(0, count);
+      List<T> batch = new ArrayList<>(taken);
+      taken.clear();
+      int left = this.objectList.size();
+      System.arraycopy(this.objectWeights, count, this.objectWeights, 0, left);
+      System.arraycopy(this.objectAddedTimes, count, this.objectAddedTimes, 0, left);
+      this.objectListWeight -= batchWeight;
+      return batch;
+    }
+  }
+
+  /**
+   * Linger ticker of {@link Mode#SYNCHRONIZED} mode. Skips the tick if a batch is being processed,
+   * the next tick checks the remaining elements again.
+   */
+  private void processIfLingered() {
+    if (!flushLock.tryLock()) {
+      return;
+    }
+    try {
+      List<T> batch;
+      while ((batch = takeBatch(false)) != null) {
+        processSafely(batch);
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /**
+   * Flusher loop of {@link Mode#STRIPED} mode. Processes full batches as soon as producers signal
+   * them and everything buffered once the timeout elapses.
+   */
+  private void flushLoop() {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    while (running) {
+      if (System.nanoTime() - deadline >= 0) {
+        List<T> batch;
+        while (!(batch = drainBatch()).isEmpty()) {
+          processSafely(batch);
+        }
+        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+      } else if (stripedBuffer.size() >= batchSize || isFull(stripedBuffer.weight())) {
+        processSafely(drainBatch());
+      } else {
+        LockSupport.parkNanos(this, deadline - System.nanoTime());
+      }
+    }
+    List<T> batch;
+    while (!Thread.currentThread().isInterrupted() && !(batch = drainBatch()).isEmpty()) {
+      processSafely(batch);
+    }
+  }
+
+  private List<T> drainBatch() {
+    return stripedBuffer.drain(batchSize, maxBatchWeight);
+  }
+
+  private void processSafely(List<T> batch) {
+    try {
+      processPending(batch);
+    } catch (Exception e) {
+      LOGGER.error("Error occurred while processing batch of {} elements", batch.size(), e);
     }
+  }
 
-    if (!copyObjectList.isEmpty()) {
-      process(copyObjectList);
+  private void processPending(List<T> batch) {
+    try {
+      process(batch);
+    } finally {
+      pending.add(-batch.size());
+      // resumed consumers would add elements that are lost once draining is done
+      if (!draining && saturated.get() && pending.sum() <= lowWaterMark
+          && saturated.compareAndSet(true, false)) {
+        onLowWaterMark();
+      }
     }
+  }
 
-    if (this.scheduledTask != null) {
-      this.scheduledTask.cancel(true);
+  /**
+   * Starts the linger ticker in {@link Mode#SYNCHRONIZED} mode or the flusher thread in
+   * {@link Mode#STRIPED} mode.
+   */
+  @Override
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    if (mode == Mode.STRIPED) {
+      flusher = new Thread(this::flushLoop, getClass().getSimpleName() + "-flusher");
+      flusher.setDaemon(true);
+      flusher.start();
+    } else {
+      lingerTask = scheduler.scheduleWithFixedDelay(this::processIfLingered,
+          Duration.ofMillis(Math.max(MIN_LINGER_TICK, timeout / LINGER_TICKS_PER_TIMEOUT)));
     }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
 
-    this.scheduledTask = this.scheduler.schedule(this::processAndSchedule, getNextTime());
+  /**
+   * Runs after listener containers of the default phase are stopped, so no more elements are
+   * expected while draining.
+   */
+  @Override
+  public int getPhase() {
+    return SmartLifecycle.DEFAULT_PHASE - 1;
+  }
+
+  @Override
+  public void stop() {
+    draining = true;
+    try {
+      beforeDrain();
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeout);
+      running = false;
+      if (mode == Mode.STRIPED) {
+        if (flusher != null) {
+          LockSupport.unpark(flusher);
+          flusher.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+          if (flusher.isAlive()) {
+            flusher.interrupt();
+            flusher.join(FLUSHER_STOP_TIMEOUT);
+          }
+        }
+      } else {
+        if (lingerTask != null) {
+          lingerTask.cancel(false);
+        }
+        drainSynchronized(deadline);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      int notProcessed = mode == Mode.STRIPED ? stripedBuffer.size() : bufferedSize();
+      if (notProcessed > 0) {
+        LOGGER.warn("{} buffered elements were not processed within shutdown timeout",
+            notProcessed);
+      }
+      if (isProcessing()) {
+        LOGGER.warn("Batch is still being processed after shutdown timeout, skipping cleanup");
+      } else {
+        afterDrain();
+      }
+      draining = false;
+    }
+  }
+
+  private void drainSynchronized(long deadline) throws InterruptedException {
+    if (!flushLock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+      return;
+    }
+    try {
+      List<T> batch;
+      while (System.nanoTime() - deadline < 0 && (batch = takeBatch(true)) != null) {
+        processSafely(batch);
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  private boolean isProcessing() {
+    return mode == Mode.STRIPED ? flusher != null && flusher.isAlive() : flushLock.isLocked();
+  }
+
+  private synchronized int bufferedSize() {
+    return this.objectList.size();
   }
 
   protected abstract void process(List<T> objectList);
+
+  /**
+   * Called on stop before buffered elements are processed.
+   */
+  protected void beforeDrain() {
+  }
+
+  /**
+   * Called on stop after buffered elements are processed or the shutdown timeout elapsed. Not
+   * called if a batch is still being processed.
+   */
+  protected void afterDrain() {
+  }
+
+  /**
+   * Called once the amount of pending elements reaches the high-water mark.
+   */
+  protected void onHighWaterMark() {
+  }
+
+  /**
+   * Called once the amount of pending elements drops to the low-water mark after reaching the
+   * high-water mark.
+   */
+  protected void onLowWaterMark() {
+  }
 }
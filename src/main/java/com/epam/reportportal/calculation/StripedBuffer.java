@@ -0,0 +1,146 @@
+package com.epam.reportportal.calculation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free multi-producer buffer split into stripes, so concurrent producers do not contend on a
+ * single queue tail. Producers are mapped to stripes by thread id, draining is done by a single
+ * consumer. Optionally tracks total weight of buffered elements, weight of an element is kept
+ * with it, so the element is weighed once.
+ *
+ * <p>Size and weight are counted per stripe in slots padded to separate cache lines, so producers
+ * of different stripes never write to a shared counter. Totals are summed by the consumer.
+ *
+ * @param <T> Element type
+ */
+class StripedBuffer<T> {
+
+  /**
+   * Longs per counter slot of a stripe: 128 bytes covers adjacent line prefetching.
+   */
+  private static final int PADDING = 16;
+  private static final int SIZE_OFFSET = 0;
+  private static final int WEIGHT_OFFSET = 1;
+
+  private final ConcurrentLinkedQueue<Entry<T>>[] stripes;
+  private final AtomicLongArray counters;
+  private final int mask;
+  private int drainFrom;
+
+  @SuppressWarnings("unchecked")
+  StripedBuffer(int concurrency) {
+    int stripesCount = Integer.highestOneBit(Math.max(1, concurrency - 1)) << 1;
+    this.stripes = new ConcurrentLinkedQueue[stripesCount];
+    for (int i = 0; i < stripesCount; i++) {
+      this.stripes[i] = new ConcurrentLinkedQueue<>();
+    }
+    // the first slot is skipped, so counters of the first stripe don't share the array header line
+    this.counters = new AtomicLongArray((stripesCount + 1) * PADDING);
+    this.mask = stripesCount - 1;
+  }
+
+  /**
+   * Adds element to the stripe of the current thread.
+   *
+   * @param element       Element to add
+   * @param elementWeight Weight of the element
+   * @param maxElements   Amount of elements of a full batch
+   * @param maxWeight     Weight of a full batch, 0 if not weighed
+   * @return {@code true} if the stripe has just reached another share of a full batch, so the
+   * consumer should check the totals
+   */
+  boolean add(T element, long elementWeight, int maxElements, long maxWeight) {
+    int stripe = (int) Thread.currentThread().threadId() & mask;
+    stripes[stripe].offer(new Entry<>(element, elementWeight));
+    long stripeSize = counters.incrementAndGet(slot(stripe) + SIZE_OFFSET);
+    boolean shareReached = stripeSize % Math.max(1, maxElements / stripes.length) == 0;
+    if (elementWeight != 0) {
+      long stripeWeight = counters.addAndGet(slot(stripe) + WEIGHT_OFFSET, elementWeight);
+      if (maxWeight > 0) {
+        long weightShare = Math.max(1, maxWeight / stripes.length);
+        shareReached |= stripeWeight / weightShare != (stripeWeight - elementWeight) / weightShare;
+      }
+    }
+    return shareReached;
+  }
+
+  int size() {
+    return (int) sum(SIZE_OFFSET);
+  }
+
+  long weight() {
+    return sum(WEIGHT_OFFSET);
+  }
+
+  private long sum(int offset) {
+    long sum = 0;
+    for (int i = 0; i < stripes.length; i++) {
+      sum += counters.get(slot(i) + offset);
+    }
+    return sum;
+  }
+
+  private static int slot(int stripe) {
+    return (stripe + 1) * PADDING;
+  }
+
+  /**
+   * Drains up to {@code maxElements} elements walking the stripes round-robin. Must be called by a
+   * single consumer thread.
+   *
+   * @param maxElements Max amount of elements to drain
+   * @param maxWeight   Weight that stops draining once reached, 0 means no limit
+   * @return Drained elements
+   */
+  List<T> drain(int maxElements, long maxWeight) {
+    List<T> result = new ArrayList<>(Math.min(maxElements, Math.max(size(), 0)));
+    long drainedWeight = 0;
+    int emptyInRow = 0;
+    int stripeDrained = 0;
+    long stripeDrainedWeight = 0;
+    while (result.size() < maxElements && emptyInRow < stripes.length
+        && (maxWeight <= 0 || drainedWeight < maxWeight)) {
+      Entry<T> entry = stripes[drainFrom].poll();
+      if (entry == null) {
+        emptyInRow++;
+        release(drainFrom, stripeDrained, stripeDrainedWeight);
+        stripeDrained = 0;
+        stripeDrainedWeight = 0;
+        drainFrom = (drainFrom + 1) & mask;
+      } else {
+        emptyInRow = 0;
+        result.add(entry.element());
+        stripeDrained++;
+        drainedWeight += entry.weight();
+        stripeDrainedWeight += entry.weight();
+      }
+    }
+    release(drainFrom, stripeDrained, stripeDrainedWeight);
+    return result;
+  }
+
+  /**
+   * Subtracts drained elements from counters of a stripe once per stripe visit, not per element.
+   */
+  private void release(int stripe, int drained, long drainedWeight) {
+    if (drained != 0) {
+      counters.addAndGet(slot(stripe) + SIZE_OFFSET, -drained);
+    }
+    if (drainedWeight != 0) {
+      counters.addAndGet(slot(stripe) + WEIGHT_OFFSET, -drainedWeight);
+    }
+  }
+
+  /**
+   * Buffered element with the weight it was added with.
+   *
+   * @param element Element
+   * @param weight  Weight of the element, 0 if not weighed
+   */
+  private record Entry<T>(T element, long weight) {
+
+  }
+}
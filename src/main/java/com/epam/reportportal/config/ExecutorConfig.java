@@ -1,6 +1,8 @@
 package com.epam.reportportal.config;
 
+import java.util.concurrent.ThreadPoolExecutor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.TaskExecutor;
@@ -23,4 +25,59 @@ public class ExecutorConfig {
     threadPoolTaskExecutor.setThreadNamePrefix("prj-alloc-storage");
     return threadPoolTaskExecutor;
   }
+
+  @Bean
+  public TaskExecutor cleanLaunchExecutor(
+      @Value("${rp.environment.variable.executor.pool.clean.launch:2}") Integer poolSize,
+      @Value("${rp.datasource.maximumPoolSize:10}") Integer connectionPoolSize) {
+    return cleanExecutor(poolSize, connectionPoolSize, "clean-launch");
+  }
+
+  @Bean
+  public TaskExecutor cleanLogExecutor(
+      @Value("${rp.environment.variable.executor.pool.clean.log:2}") Integer poolSize,
+      @Value("${rp.datasource.maximumPoolSize:10}") Integer connectionPoolSize) {
+    return cleanExecutor(poolSize, connectionPoolSize, "clean-log");
+  }
+
+  @Bean
+  public TaskExecutor cleanAttachmentExecutor(
+      @Value("${rp.environment.variable.executor.pool.clean.attachment:2}") Integer poolSize,
+      @Value("${rp.datasource.maximumPoolSize:10}") Integer connectionPoolSize) {
+    return cleanExecutor(poolSize, connectionPoolSize, "clean-attachment");
+  }
+
+  /**
+   * A worker of a clean job holds a connection at a time, so a job is limited to a quarter of the
+   * connection pool to leave connections for other jobs.
+   */
+  private static TaskExecutor cleanExecutor(int poolSize, int connectionPoolSize,
+      String threadNamePrefix) {
+    int size = Math.max(1, Math.min(poolSize, connectionPoolSize / 4));
+    final ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+    threadPoolTaskExecutor.setCorePoolSize(size);
+    threadPoolTaskExecutor.setMaxPoolSize(size);
+    threadPoolTaskExecutor.setAllowCoreThreadTimeOut(true);
+    threadPoolTaskExecutor.setThreadNamePrefix(threadNamePrefix);
+    return threadPoolTaskExecutor;
+  }
+
+  /**
+   * Bulk requests are limited by permits of the search engine client, the queue is bounded and a
+   * rejected task runs on the caller thread, which then waits for a permit.
+   */
+  @Bean
+  @ConditionalOnProperty(prefix = "rp.searchengine", name = "host")
+  public TaskExecutor searchEngineBulkExecutor(
+      @Value("${rp.searchengine.bulk.maxInFlight:4}") Integer maxInFlight,
+      @Value("${rp.searchengine.bulk.queueCapacity:100}") Integer queueCapacity) {
+    final ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+    threadPoolTaskExecutor.setCorePoolSize(maxInFlight);
+    threadPoolTaskExecutor.setMaxPoolSize(maxInFlight);
+    threadPoolTaskExecutor.setQueueCapacity(queueCapacity);
+    threadPoolTaskExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    threadPoolTaskExecutor.setAllowCoreThreadTimeOut(true);
+    threadPoolTaskExecutor.setThreadNamePrefix("search-engine-bulk");
+    return threadPoolTaskExecutor;
+  }
 }
@@ -0,0 +1,28 @@
+package com.epam.reportportal.config;
+
+import com.epam.reportportal.calculation.AdaptiveBatchController;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of log batch processing.
+ */
+@Configuration
+public class LogProcessingConfig {
+
+  @Bean
+  @ConditionalOnProperty(prefix = "rp.processing.log.adaptive", name = "enabled",
+      havingValue = "true")
+  public AdaptiveBatchController logBatchController(
+      @Value("${rp.processing.log.adaptive.minBatchSize}") int minBatchSize,
+      @Value("${rp.processing.log.adaptive.maxBatchSize}") int maxBatchSize,
+      @Value("${rp.processing.log.adaptive.minBatchTimeout}") long minBatchTimeout,
+      @Value("${rp.processing.log.adaptive.maxBatchTimeout}") long maxBatchTimeout,
+      @Value("${rp.processing.log.adaptive.targetLatency}") long targetLatency,
+      @Value("${rp.processing.log.adaptive.maxBatchBytes}") long maxBatchBytes) {
+    return new AdaptiveBatchController(minBatchSize, maxBatchSize, minBatchTimeout,
+        maxBatchTimeout, targetLatency, maxBatchBytes);
+  }
+}
@@ -20,6 +20,8 @@ public class BackgroundProcessingConfiguration {
 
   public static final String LOG_MESSAGE_SAVING_QUEUE_NAME = "log_message_saving";
   public static final String LOG_MESSAGE_SAVING_ROUTING_KEY = "log_message_saving";
+  public static final String LOG_MESSAGE_SAVING_DLQ_NAME = "log_message_saving.dlq";
+  public static final String LOG_MESSAGE_SAVING_DLQ_ROUTING_KEY = "log_message_saving.dlq";
   public static final String PROCESSING_EXCHANGE_NAME = "processing";
 
   @Bean
@@ -27,6 +29,11 @@ public class BackgroundProcessingConfiguration {
     return new Queue(LOG_MESSAGE_SAVING_QUEUE_NAME);
   }
 
+  @Bean
+  Queue logMessageSavingDeadLetterQueue() {
+    return new Queue(LOG_MESSAGE_SAVING_DLQ_NAME);
+  }
+
   @Bean
   DirectExchange exchangeProcessing() {
     return new DirectExchange(PROCESSING_EXCHANGE_NAME);
@@ -37,4 +44,11 @@ public class BackgroundProcessingConfiguration {
       @Qualifier("exchangeProcessing") DirectExchange exchange) {
     return BindingBuilder.bind(queue).to(exchange).with(LOG_MESSAGE_SAVING_ROUTING_KEY);
   }
+
+  @Bean
+  Binding bindingSavingLogsDeadLetter(
+      @Qualifier("logMessageSavingDeadLetterQueue") Queue queue,
+      @Qualifier("exchangeProcessing") DirectExchange exchange) {
+    return BindingBuilder.bind(queue).to(exchange).with(LOG_MESSAGE_SAVING_DLQ_ROUTING_KEY);
+  }
 }
@@ -16,14 +16,17 @@
 
 package com.epam.reportportal.config.rabbit;
 
+import com.epam.reportportal.log.LogMessageBinaryConverter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.net.URI;
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -55,15 +58,56 @@ public class RabbitMqConfiguration {
     return factory;
   }
 
+  /**
+   * Chooses converter by content type of a message, falling back to JSON. Compact binary log
+   * messages are accepted when enabled.
+   */
+  @Bean
+  public MessageConverter listenerMessageConverter(MessageConverter jsonMessageConverter,
+      @Value("${rp.processing.log.binary.enabled:false}") boolean binaryLogsEnabled) {
+    ContentTypeDelegatingMessageConverter converter =
+        new ContentTypeDelegatingMessageConverter(jsonMessageConverter);
+    if (binaryLogsEnabled) {
+      converter.addDelegate(LogMessageBinaryConverter.CONTENT_TYPE,
+          new LogMessageBinaryConverter());
+    }
+    return converter;
+  }
+
   @Bean
   public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
       @Qualifier("connectionFactory") ConnectionFactory connectionFactory,
-      MessageConverter jsonMessageConverter,
+      MessageConverter listenerMessageConverter,
       @Value("${rp.amqp.maxLogConsumer}") int maxLogConsumer) {
     SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
     factory.setConnectionFactory(connectionFactory);
     factory.setMaxConcurrentConsumers(maxLogConsumer);
-    factory.setMessageConverter(jsonMessageConverter);
+    factory.setMessageConverter(listenerMessageConverter);
+    return factory;
+  }
+
+  /**
+   * Container factory for batch listeners. Consumers receive messages in batches and acknowledge
+   * them manually.
+   */
+  @Bean
+  public SimpleRabbitListenerContainerFactory batchRabbitListenerContainerFactory(
+      @Qualifier("connectionFactory") ConnectionFactory connectionFactory,
+      MessageConverter listenerMessageConverter,
+      @Value("${rp.amqp.maxLogConsumer}") int maxLogConsumer,
+      @Value("${rp.processing.log.listener.batch.size:300}") int batchSize,
+      @Value("${rp.processing.log.listener.batch.prefetch:600}") int prefetch,
+      @Value("${rp.processing.log.listener.batch.receiveTimeout:1000}") long receiveTimeout) {
+    SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+    factory.setConnectionFactory(connectionFactory);
+    factory.setMaxConcurrentConsumers(maxLogConsumer);
+    factory.setMessageConverter(listenerMessageConverter);
+    factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+    factory.setBatchListener(true);
+    factory.setConsumerBatchEnabled(true);
+    factory.setBatchSize(batchSize);
+    factory.setPrefetchCount(Math.max(prefetch, batchSize));
+    factory.setReceiveTimeout(receiveTimeout);
     return factory;
   }
 
@@ -0,0 +1,98 @@
+package com.epam.reportportal.elastic;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser of bulk responses. Reads only statuses and error types of items, and stops
+ * right away if the response reports no errors.
+ */
+final class BulkResponseParser {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private static final String REJECTED_EXECUTION_ERROR = "es_rejected_execution_exception";
+  private static final int TOO_MANY_REQUESTS = 429;
+
+  private BulkResponseParser() {
+  }
+
+  /**
+   * Failed items of a bulk request, referenced by their positions in the request.
+   *
+   * @param retryableItems Items rejected because the cluster is overloaded
+   * @param failedItems    Items failed for any other reason
+   * @param firstError     Type and reason of the first failed item
+   */
+  record BulkResult(List<Integer> retryableItems, List<Integer> failedItems, String firstError) {
+
+    static final BulkResult SUCCESS = new BulkResult(List.of(), List.of(), null);
+  }
+
+  static BulkResult parse(InputStream body) throws IOException {
+    List<Integer> retryableItems = new ArrayList<>();
+    List<Integer> failedItems = new ArrayList<>();
+    String firstError = null;
+    try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Bulk response is not a JSON object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if ("errors".equals(field) && value == JsonToken.VALUE_FALSE) {
+          return BulkResult.SUCCESS;
+        }
+        if (!"items".equals(field) || value != JsonToken.START_ARRAY) {
+          parser.skipChildren();
+          continue;
+        }
+        int position = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+          // item is an object with a single action field
+          parser.nextToken();
+          parser.nextToken();
+          int status = 0;
+          String errorType = null;
+          String errorReason = null;
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("status".equals(name)) {
+              status = parser.getIntValue();
+            } else if ("error".equals(name) && token == JsonToken.START_OBJECT) {
+              while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String errorField = parser.currentName();
+                parser.nextToken();
+                if ("type".equals(errorField)) {
+                  errorType = parser.getText();
+                } else if ("reason".equals(errorField)) {
+                  errorReason = parser.getText();
+                } else {
+                  parser.skipChildren();
+                }
+              }
+            } else {
+              parser.skipChildren();
+            }
+          }
+          parser.nextToken();
+          if (status == TOO_MANY_REQUESTS || REJECTED_EXECUTION_ERROR.equals(errorType)) {
+            retryableItems.add(position);
+          } else if (status >= 300 || errorType != null) {
+            failedItems.add(position);
+            if (firstError == null) {
+              firstError = errorType + ": " + errorReason;
+            }
+          }
+          position++;
+        }
+      }
+    }
+    return new BulkResult(retryableItems, failedItems, firstError);
+  }
+}
@@ -0,0 +1,135 @@
+package com.epam.reportportal.elastic;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Limits amount of running delete-by-query tasks. A permit is taken before a task is started and
+ * released once polling finds the task completed, lost or timed out.
+ *
+ * <p>Tasks are polled by the maintenance scheduler, and also inline while waiting for a permit,
+ * so a waiting thread frees permits itself instead of relying on another thread to poll.
+ */
+final class DeleteTaskTracker {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DeleteTaskTracker.class);
+
+  private final String host;
+  private final RestTemplate restTemplate;
+  private final Function<String, HttpEntity<String>> entityFactory;
+  private final Semaphore permits;
+  private final long taskTimeout;
+  private final long pollInterval;
+  private final Map<String, Long> tasks = new ConcurrentHashMap<>();
+
+  /**
+   * @param host            Search engine host
+   * @param restTemplate    Template to send requests with
+   * @param entityFactory   Creates request entity with authentication headers for a body
+   * @param maxRunningTasks Max amount of tasks running at once
+   * @param taskTimeout     Time in milliseconds a task is tracked for
+   * @param pollInterval    Time in milliseconds to wait for a permit between polls
+   */
+  DeleteTaskTracker(String host, RestTemplate restTemplate,
+      Function<String, HttpEntity<String>> entityFactory, int maxRunningTasks, long taskTimeout,
+      long pollInterval) {
+    this.host = host;
+    this.restTemplate = restTemplate;
+    this.entityFactory = entityFactory;
+    this.permits = new Semaphore(maxRunningTasks);
+    this.taskTimeout = taskTimeout;
+    this.pollInterval = pollInterval;
+  }
+
+  /**
+   * Waits for a permit to start a task, polling running tasks while waiting.
+   *
+   * @return false if the thread was interrupted
+   */
+  boolean acquire() {
+    try {
+      while (!permits.tryAcquire(pollInterval, TimeUnit.MILLISECONDS)) {
+        poll();
+      }
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Tracks a started task, holding its permit until the task is finished.
+   */
+  void started(String taskId) {
+    tasks.put(taskId, System.currentTimeMillis());
+  }
+
+  /**
+   * Releases the permit of a task that failed to start.
+   */
+  void release() {
+    permits.release();
+  }
+
+  /**
+   * Polls running tasks, releasing permits of completed, lost and timed out ones.
+   */
+  void poll() {
+    tasks.forEach((taskId, startedAt) -> {
+      boolean finished;
+      try {
+        JSONObject task = new JSONObject(restTemplate.exchange(host + "/_tasks/" + taskId,
+            HttpMethod.GET, entityFactory.apply(null), String.class).getBody());
+        finished = task.optBoolean("completed");
+        if (finished) {
+          logResult(taskId, task);
+        }
+      } catch (HttpClientErrorException.NotFound e) {
+        LOGGER.warn("Delete task {} is not found", taskId);
+        finished = true;
+      } catch (Exception e) {
+        LOGGER.warn("Polling of delete task {} failed: {}", taskId, e.getMessage());
+        finished = false;
+      }
+      if (!finished && System.currentTimeMillis() - startedAt > taskTimeout) {
+        LOGGER.warn("Delete task {} is still running after {} ms, not tracking it anymore",
+            taskId, taskTimeout);
+        finished = true;
+      }
+      // tasks may be polled by several threads, only the one removing a task releases its permit
+      if (finished && tasks.remove(taskId) != null) {
+        permits.release();
+      }
+    });
+  }
+
+  private static void logResult(String taskId, JSONObject task) {
+    JSONObject error = task.optJSONObject("error");
+    if (error != null) {
+      LOGGER.error("Delete task {} failed: {}", taskId, error.optString("reason"));
+      return;
+    }
+    JSONObject response = task.optJSONObject("response");
+    if (response == null) {
+      return;
+    }
+    JSONArray failures = response.optJSONArray("failures");
+    if (failures != null && !failures.isEmpty()) {
+      LOGGER.error("Delete task {} completed with {} failures, first: {}", taskId,
+          failures.length(), failures.get(0));
+    }
+    LOGGER.info("Delete task {} deleted {} logs", taskId, response.optLong("deleted"));
+  }
+}
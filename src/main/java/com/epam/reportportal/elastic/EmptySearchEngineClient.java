@@ -1,6 +1,8 @@
 package com.epam.reportportal.elastic;
 
 import com.epam.reportportal.log.LogMessage;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.stereotype.Service;
 
@@ -19,4 +21,13 @@ public class EmptySearchEngineClient implements SearchEngineClient {
   @Override
   public void deleteLogsByLaunchIdAndProjectId(Long launchId, Long projectId) {
   }
+
+  @Override
+  public void deleteLogsByLaunchIdsAndProjectId(Collection<Long> launchIds, Long projectId) {
+  }
+
+  @Override
+  public void deleteExpiredLogIndices(Long projectId, LocalDateTime lessThanDate,
+      Collection<Long> retainedLaunchIds) {
+  }
 }
@@ -0,0 +1,77 @@
+package com.epam.reportportal.elastic;
+
+import static com.epam.reportportal.log.LogMessage.NO_ID;
+import static com.epam.reportportal.log.LogMessage.NO_TIME;
+
+import com.epam.reportportal.log.LogMessage;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes logs as a bulk request body: a {@code create} action line followed by a document line
+ * for every log. Lines are streamed straight into the target stream, without building the body in
+ * memory. Messages are written as their UTF-8 bytes, without decoding, and log time as epoch
+ * milliseconds.
+ */
+final class LogBulkWriter {
+
+  private static final String CREATE_ACTION = "{\"create\":{}}\n";
+  private static final int DOCUMENT_OVERHEAD = 128;
+  private static final long MICROS_PER_MILLI = 1_000L;
+  private static final JsonFactory JSON_FACTORY = new JsonFactory()
+      .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+  private LogBulkWriter() {
+  }
+
+  /**
+   * Estimates size of the bulk request body without writing it.
+   */
+  static long estimateSize(List<LogMessage> logMessages) {
+    long size = 0;
+    for (LogMessage logMessage : logMessages) {
+      byte[] message = logMessage.getLogMessageBytes();
+      size += message == null ? DOCUMENT_OVERHEAD : DOCUMENT_OVERHEAD + message.length;
+    }
+    return size;
+  }
+
+  static void write(List<LogMessage> logMessages, OutputStream outputStream) throws IOException {
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream)) {
+      generator.setRootValueSeparator(null);
+      for (LogMessage logMessage : logMessages) {
+        generator.writeRaw(CREATE_ACTION);
+        writeDocument(generator, logMessage);
+        generator.writeRaw('\n');
+      }
+    }
+  }
+
+  private static void writeDocument(JsonGenerator generator, LogMessage logMessage)
+      throws IOException {
+    generator.writeStartObject();
+    if (logMessage.getId() != NO_ID) {
+      generator.writeNumberField("id", logMessage.getId());
+    }
+    byte[] message = logMessage.getLogMessageBytes();
+    if (message != null) {
+      generator.writeFieldName("message");
+      generator.writeUTF8String(message, 0, message.length);
+    }
+    if (logMessage.getItemId() != NO_ID) {
+      generator.writeNumberField("itemId", logMessage.getItemId());
+    }
+    if (logMessage.getLogTimeMicros() != NO_TIME) {
+      // epoch millis are accepted by the default date format, without formatting a date string
+      generator.writeNumberField("@timestamp",
+          Math.floorDiv(logMessage.getLogTimeMicros(), MICROS_PER_MILLI));
+    }
+    if (logMessage.getLaunchId() != NO_ID) {
+      generator.writeNumberField("launchId", logMessage.getLaunchId());
+    }
+    generator.writeEndObject();
+  }
+}
@@ -0,0 +1,253 @@
+package com.epam.reportportal.elastic;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Manages log indices of projects. Bootstraps a component template with explicit mappings of log
+ * documents and an index template of log data streams, and creates the data stream of a project
+ * in background once the first log of the project is sent.
+ *
+ * <p>Projects with known data streams are kept in a bounded cache, so the hot path only looks up
+ * the cache.
+ *
+ * <p>When data streams are rolled over by age, each backing index holds logs of a time bucket, and
+ * expired backing indices can be deleted as a whole instead of deleting their logs by query.
+ */
+final class LogIndexManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LogIndexManager.class);
+
+  static final String INDEX_PREFIX = "logs-reportportal-";
+
+  private static final String COMPONENT_TEMPLATE_NAME = "logs-reportportal-mappings";
+  private static final String INDEX_TEMPLATE_NAME = "logs-reportportal";
+  private static final String ALREADY_EXISTS_REASON = "already exists";
+  private static final int MAX_BACKING_INDICES = 10000;
+
+  private static final String COMPONENT_TEMPLATE = """
+      {"template":{"mappings":{"properties":{
+        "@timestamp":{"type":"date"},
+        "id":{"type":"long"},
+        "message":{"type":"text"},
+        "itemId":{"type":"long"},
+        "launchId":{"type":"long"}
+      }}}}""";
+
+  private static final String INDEX_TEMPLATE = """
+      {"index_patterns":["%s*"],"data_stream":{},"composed_of":["%s"],"priority":200}"""
+      .formatted(INDEX_PREFIX, COMPONENT_TEMPLATE_NAME);
+
+  private final String host;
+  private final RestTemplate restTemplate;
+  private final Function<String, HttpEntity<String>> entityFactory;
+  private final Executor executor;
+  private final Cache<Long, String> knownIndices;
+
+  /**
+   * @param host          Search engine host
+   * @param restTemplate  Template to send requests with
+   * @param entityFactory Creates request entity with authentication headers for a body
+   * @param executor      Executor of background requests
+   * @param cacheSize     Max amount of projects to keep in the cache
+   */
+  LogIndexManager(String host, RestTemplate restTemplate,
+      Function<String, HttpEntity<String>> entityFactory, Executor executor, long cacheSize) {
+    this.host = host;
+    this.restTemplate = restTemplate;
+    this.entityFactory = entityFactory;
+    this.executor = executor;
+    this.knownIndices = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+  }
+
+  static String indexName(long projectId) {
+    return INDEX_PREFIX + projectId;
+  }
+
+  /**
+   * Resolves the log index of a project, creating its data stream in background if the project
+   * is not known yet.
+   *
+   * @param projectId Project id
+   * @return Index name
+   */
+  String resolveIndex(long projectId) {
+    String indexName = knownIndices.getIfPresent(projectId);
+    if (indexName != null) {
+      return indexName;
+    }
+    indexName = indexName(projectId);
+    if (knownIndices.asMap().putIfAbsent(projectId, indexName) == null) {
+      String createdIndexName = indexName;
+      executor.execute(() -> {
+        // the first bulk request creates the data stream anyway, retry on the next log
+        if (!createIfAbsent("/_data_stream/" + createdIndexName, null)) {
+          knownIndices.invalidate(projectId);
+        }
+      });
+    }
+    return indexName;
+  }
+
+  /**
+   * Creates templates of log data streams, keeping existing ones untouched.
+   */
+  void bootstrapTemplates() {
+    executor.execute(() -> {
+      if (createIfAbsent("/_component_template/" + COMPONENT_TEMPLATE_NAME + "?create=true",
+          COMPONENT_TEMPLATE)) {
+        createIfAbsent("/_index_template/" + INDEX_TEMPLATE_NAME + "?create=true", INDEX_TEMPLATE);
+      }
+    });
+  }
+
+  /**
+   * Rolls over log data streams whose write index is older than the max age.
+   *
+   * @param maxAge Max age of a write index, e.g. {@code 7d}
+   */
+  void rolloverDataStreams(String maxAge) {
+    JSONObject dataStreams;
+    try {
+      dataStreams = new JSONObject(restTemplate.exchange(host + "/_data_stream/" + INDEX_PREFIX
+          + "*", HttpMethod.GET, entityFactory.apply(null), String.class).getBody());
+    } catch (RestClientException e) {
+      LOGGER.warn("Failed to list log data streams: {}", e.getMessage());
+      return;
+    }
+    String conditions = new JSONObject().put("conditions",
+        new JSONObject().put("max_age", maxAge)).toString();
+    JSONArray streams = dataStreams.optJSONArray("data_streams");
+    for (int i = 0; streams != null && i < streams.length(); i++) {
+      String name = streams.getJSONObject(i).getString("name");
+      try {
+        JSONObject result = new JSONObject(restTemplate.exchange(host + "/" + name + "/_rollover",
+            HttpMethod.POST, entityFactory.apply(conditions), String.class).getBody());
+        if (result.optBoolean("rolled_over")) {
+          LOGGER.info("Rolled over {} to {}", name, result.optString("new_index"));
+        }
+      } catch (RestClientException e) {
+        LOGGER.warn("Failed to roll over {}: {}", name, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Finds backing indices of the project data stream with logs older than the date only. The
+   * write index and indices with logs of retained launches are never returned.
+   *
+   * @param projectId         Project id
+   * @param lessThanDate      Logs older than the date are expired
+   * @param retainedLaunchIds Launches whose logs must be kept
+   * @return Names of expired backing indices
+   */
+  List<String> findExpiredBackingIndices(long projectId, LocalDateTime lessThanDate,
+      Collection<Long> retainedLaunchIds) {
+    String dataStream = indexName(projectId);
+    List<String> backingIndices = getBackingIndices(dataStream);
+    if (backingIndices.size() < 2) {
+      return List.of();
+    }
+    // the last backing index is the write index
+    backingIndices = backingIndices.subList(0, backingIndices.size() - 1);
+
+    JSONObject aggregations = new JSONObject()
+        .put("maxTime", new JSONObject().put("max", new JSONObject().put("field", "@timestamp")));
+    if (!retainedLaunchIds.isEmpty()) {
+      aggregations.put("retained", new JSONObject().put("filter", new JSONObject().put("terms",
+          new JSONObject().put("launchId", new JSONArray(retainedLaunchIds)))));
+    }
+    String search = new JSONObject().put("size", 0).put("aggs", new JSONObject().put("indices",
+        new JSONObject()
+            .put("terms", new JSONObject().put("field", "_index").put("size", MAX_BACKING_INDICES))
+            .put("aggs", aggregations))).toString();
+    JSONArray buckets = new JSONObject(restTemplate.exchange(host + "/" + dataStream + "/_search",
+        HttpMethod.POST, entityFactory.apply(search), String.class).getBody())
+        .getJSONObject("aggregations").getJSONObject("indices").getJSONArray("buckets");
+    Map<String, JSONObject> bucketsByIndex = new HashMap<>();
+    for (int i = 0; i < buckets.length(); i++) {
+      bucketsByIndex.put(buckets.getJSONObject(i).getString("key"), buckets.getJSONObject(i));
+    }
+
+    long lessThanMillis = lessThanDate.toInstant(ZoneOffset.UTC).toEpochMilli();
+    List<String> expired = new ArrayList<>();
+    for (String index : backingIndices) {
+      JSONObject bucket = bucketsByIndex.get(index);
+      // indices without logs have no bucket
+      if (bucket == null || (
+          bucket.getJSONObject("maxTime").optDouble("value", Double.MAX_VALUE) <= lessThanMillis
+              && (!bucket.has("retained")
+              || bucket.getJSONObject("retained").getLong("doc_count") == 0))) {
+        expired.add(index);
+      }
+    }
+    return expired;
+  }
+
+  /**
+   * Deletes backing indices of data streams.
+   *
+   * @param indices Index names
+   */
+  void deleteIndices(List<String> indices) {
+    restTemplate.exchange(host + "/" + String.join(",", indices), HttpMethod.DELETE,
+        entityFactory.apply(null), String.class);
+  }
+
+  private List<String> getBackingIndices(String dataStream) {
+    JSONObject dataStreams;
+    try {
+      dataStreams = new JSONObject(restTemplate.exchange(host + "/_data_stream/" + dataStream,
+          HttpMethod.GET, entityFactory.apply(null), String.class).getBody());
+    } catch (HttpClientErrorException.NotFound e) {
+      return List.of();
+    }
+    JSONArray streams = dataStreams.getJSONArray("data_streams");
+    if (streams.isEmpty()) {
+      return List.of();
+    }
+    JSONArray indices = streams.getJSONObject(0).getJSONArray("indices");
+    List<String> names = new ArrayList<>(indices.length());
+    for (int i = 0; i < indices.length(); i++) {
+      names.add(indices.getJSONObject(i).getString("index_name"));
+    }
+    return names;
+  }
+
+  /**
+   * @return {@code false} if the resource was neither created nor exists
+   */
+  private boolean createIfAbsent(String path, String body) {
+    try {
+      restTemplate.exchange(host + path, HttpMethod.PUT, entityFactory.apply(body), String.class);
+      LOGGER.debug("Created {}", path);
+      return true;
+    } catch (HttpClientErrorException e) {
+      if (e.getResponseBodyAsString().contains(ALREADY_EXISTS_REASON)) {
+        return true;
+      }
+      LOGGER.warn("Failed to create {}: {}", path, e.getMessage());
+    } catch (RestClientException e) {
+      LOGGER.warn("Failed to create {}: {}", path, e.getMessage());
+    }
+    return false;
+  }
+}
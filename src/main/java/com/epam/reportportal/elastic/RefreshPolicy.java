@@ -0,0 +1,32 @@
+package com.epam.reportportal.elastic;
+
+/**
+ * Refresh policy of bulk requests to Search engine.
+ */
+public enum RefreshPolicy {
+
+  /**
+   * Bulk requests don't refresh indices, written indices are refreshed on a schedule.
+   */
+  NONE(""),
+
+  /**
+   * Bulk requests wait until the next refresh makes documents searchable.
+   */
+  WAIT_FOR("?refresh=wait_for"),
+
+  /**
+   * Bulk requests force refresh of affected shards.
+   */
+  IMMEDIATE("?refresh=true");
+
+  private final String query;
+
+  RefreshPolicy(String query) {
+    this.query = query;
+  }
+
+  public String getQuery() {
+    return query;
+  }
+}
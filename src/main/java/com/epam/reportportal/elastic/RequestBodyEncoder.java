@@ -0,0 +1,44 @@
+package com.epam.reportportal.elastic;
+
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Compresses streamed request bodies with gzip once their estimated size reaches a threshold.
+ */
+final class RequestBodyEncoder {
+
+  static final String GZIP = "gzip";
+  private static final int GZIP_BUFFER_SIZE = 8192;
+
+  private RequestBodyEncoder() {
+  }
+
+  /**
+   * Wraps the body into a compressing one and sets {@code Content-Encoding} header if the size
+   * reaches the threshold.
+   *
+   * @param body                 Body to encode
+   * @param size                 Estimated size of the body in bytes
+   * @param compressionThreshold Size in bytes to compress from, negative if compression is disabled
+   * @param headers              Headers of the request
+   * @return Body to write
+   */
+  static StreamingHttpOutputMessage.Body encode(StreamingHttpOutputMessage.Body body, long size,
+      long compressionThreshold, HttpHeaders headers) {
+    if (compressionThreshold < 0 || size < compressionThreshold) {
+      return body;
+    }
+    headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+    return outputStream -> {
+      // closing releases the deflater, the request stream is closed by the client
+      try (OutputStream gzip = new GZIPOutputStream(StreamUtils.nonClosing(outputStream),
+          GZIP_BUFFER_SIZE)) {
+        body.writeTo(gzip);
+      }
+    };
+  }
+}
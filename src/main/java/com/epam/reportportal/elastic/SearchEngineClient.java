@@ -1,6 +1,8 @@
 package com.epam.reportportal.elastic;
 
 import com.epam.reportportal.log.LogMessage;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -13,4 +15,23 @@ public interface SearchEngineClient {
   void save(List<LogMessage> logMessageList);
 
   void deleteLogsByLaunchIdAndProjectId(Long launchId, Long projectId);
+
+  /**
+   * Starts deletion of logs of launches. Deletion may complete after the method returns.
+   *
+   * @param launchIds Launch ids
+   * @param projectId Project id
+   */
+  void deleteLogsByLaunchIdsAndProjectId(Collection<Long> launchIds, Long projectId);
+
+  /**
+   * Deletes whole log indices of a project that hold expired logs only, if logs are stored in
+   * time-based indices. Logs in the remaining indices are kept.
+   *
+   * @param projectId         Project id
+   * @param lessThanDate      Logs older than the date are expired
+   * @param retainedLaunchIds Launches whose logs must be kept
+   */
+  void deleteExpiredLogIndices(Long projectId, LocalDateTime lessThanDate,
+      Collection<Long> retainedLaunchIds);
 }
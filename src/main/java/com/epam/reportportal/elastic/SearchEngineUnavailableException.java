@@ -0,0 +1,22 @@
+package com.epam.reportportal.elastic;
+
+import com.epam.reportportal.log.LogMessage;
+import java.util.List;
+
+/**
+ * Thrown when logs could not be saved because the search engine stayed unavailable after all
+ * retries. Carries the logs that were not saved, so they can be kept for later.
+ */
+public class SearchEngineUnavailableException extends RuntimeException {
+
+  private final transient List<LogMessage> unsavedLogs;
+
+  public SearchEngineUnavailableException(String message, List<LogMessage> unsavedLogs) {
+    super(message);
+    this.unsavedLogs = unsavedLogs;
+  }
+
+  public List<LogMessage> getUnsavedLogs() {
+    return unsavedLogs;
+  }
+}
@@ -1,26 +1,81 @@
 package com.epam.reportportal.elastic;
 
+import com.epam.reportportal.elastic.BulkResponseParser.BulkResult;
 import com.epam.reportportal.log.LogMessage;
-import java.util.HashMap;
+import com.epam.reportportal.service.MessageBus;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.collect.Iterables;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.client.support.BasicAuthenticationInterceptor;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * Simple client to work with Search engine.
  *
+ * <p>Bulk requests refresh indices according to {@link RefreshPolicy}. With
+ * {@link RefreshPolicy#NONE} indices written since the last refresh are refreshed on a fixed
+ * interval instead.
+ *
+ * <p>Request bodies of bulk and delete-by-query requests reaching the configured size are
+ * compressed with gzip while being streamed, when compression is enabled.
+ *
+ * <p>Logs of launches are deleted with delete-by-query tasks running in background. Amount of
+ * running tasks is limited, tasks are polled on a fixed interval until they complete.
+ *
+ * <p>Logs are written to per-project data streams managed by {@link LogIndexManager}. With
+ * rollover enabled data streams are rolled over by age, so expired logs are deleted with whole
+ * backing indices, leaving delete-by-query for logs in the remaining ones.
+ *
+ * <p>Logs rejected because the cluster is overloaded, as well as whole bulk requests failed with
+ * a transient error, are retried with exponential backoff and jitter. Logs rejected by the search
+ * engine are published to the dead letter queue, while logs not saved because the search engine
+ * stayed unavailable are reported with {@link SearchEngineUnavailableException}.
+ *
  * @author <a href="mailto:maksim_antonov@epam.com">Maksim Antonov</a>
  */
 @Primary
@@ -28,21 +83,152 @@ import org.springframework.web.client.RestTemplate;
 @ConditionalOnProperty(prefix = "rp.searchengine", name = "host")
 public class SimpleSearchEngineClient implements SearchEngineClient {
 
+  private static final JsonFactory JSON_FACTORY = new JsonFactory()
+      .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
   protected final Logger LOGGER = LoggerFactory.getLogger(SimpleSearchEngineClient.class);
 
   private final String host;
   private final RestTemplate restTemplate;
+  private final String basicAuth;
+  private final TaskExecutor searchEngineBulkExecutor;
+  private final Semaphore bulkPermits;
+  private final RefreshPolicy refreshPolicy;
+  private final Set<String> touchedIndices = ConcurrentHashMap.newKeySet();
+  private final MessageBus messageBus;
+  private final int retryMaxAttempts;
+  private final long retryInitialDelay;
+  private final long retryMaxDelay;
+  private final LogIndexManager indexManager;
+  private final long compressionThreshold;
+  private final int deleteMaxTermsCount;
+  private final DeleteTaskTracker deleteTasks;
+  private final boolean rolloverEnabled;
+  private final String rolloverMaxAge;
+  private final long rolloverInterval;
+  private final long refreshInterval;
+  private final long deletePollInterval;
+  private final ThreadPoolTaskScheduler maintenanceScheduler;
 
+  @Autowired
   public SimpleSearchEngineClient(@Value("${rp.searchengine.host}") String host,
       @Value("${rp.searchengine.username:}") String username,
-      @Value("${rp.searchengine.password:}") String password) {
-    restTemplate = new RestTemplate();
+      @Value("${rp.searchengine.password:}") String password,
+      @Value("${rp.searchengine.http.maxConnections:50}") int maxConnections,
+      @Value("${rp.searchengine.http.maxConnectionsPerRoute:20}") int maxConnectionsPerRoute,
+      @Qualifier("searchEngineBulkExecutor") TaskExecutor searchEngineBulkExecutor,
+      @Value("${rp.searchengine.bulk.maxInFlight:4}") int maxInFlight,
+      @Value("${rp.searchengine.refresh.policy:NONE}") RefreshPolicy refreshPolicy,
+      MessageBus messageBus,
+      @Value("${rp.searchengine.bulk.retry.maxAttempts:5}") int retryMaxAttempts,
+      @Value("${rp.searchengine.bulk.retry.initialDelay:500}") long retryInitialDelay,
+      @Value("${rp.searchengine.bulk.retry.maxDelay:30000}") long retryMaxDelay,
+      @Value("${rp.searchengine.index.cacheSize:10000}") long indexCacheSize,
+      @Value("${rp.searchengine.compression.enabled:false}") boolean compressionEnabled,
+      @Value("${rp.searchengine.compression.threshold:4096}") long compressionThreshold,
+      @Value("${rp.searchengine.delete.maxTermsCount:65536}") int deleteMaxTermsCount,
+      @Value("${rp.searchengine.delete.maxRunningTasks:2}") int deleteMaxRunningTasks,
+      @Value("${rp.searchengine.delete.taskTimeout:3600000}") long deleteTaskTimeout,
+      @Value("${rp.searchengine.delete.pollInterval:5000}") long deletePollInterval,
+      @Value("${rp.searchengine.index.rollover.enabled:false}") boolean rolloverEnabled,
+      @Value("${rp.searchengine.index.rollover.maxAge:7d}") String rolloverMaxAge,
+      @Value("${rp.searchengine.index.rollover.interval:3600000}") long rolloverInterval,
+      @Value("${rp.searchengine.refresh.interval:10000}") long refreshInterval) {
+    this(host, username, password, createRestTemplate(maxConnections, maxConnectionsPerRoute),
+        searchEngineBulkExecutor, maxInFlight, refreshPolicy, messageBus, retryMaxAttempts,
+        retryInitialDelay, retryMaxDelay, indexCacheSize, compressionEnabled, compressionThreshold,
+        deleteMaxTermsCount, deleteMaxRunningTasks, deleteTaskTimeout, deletePollInterval,
+        rolloverEnabled, rolloverMaxAge, rolloverInterval, refreshInterval);
+  }
+
+  SimpleSearchEngineClient(String host, String username, String password,
+      RestTemplate restTemplate, TaskExecutor searchEngineBulkExecutor, int maxInFlight,
+      RefreshPolicy refreshPolicy, MessageBus messageBus, int retryMaxAttempts,
+      long retryInitialDelay, long retryMaxDelay, long indexCacheSize, boolean compressionEnabled,
+      long compressionThreshold, int deleteMaxTermsCount, int deleteMaxRunningTasks,
+      long deleteTaskTimeout, long deletePollInterval, boolean rolloverEnabled,
+      String rolloverMaxAge, long rolloverInterval, long refreshInterval) {
+    this.restTemplate = restTemplate;
 
+    // set per request instead of an interceptor, which would buffer streamed bodies
     if (!username.isEmpty() && !password.isEmpty()) {
-      restTemplate.getInterceptors().add(new BasicAuthenticationInterceptor(username, password));
+      basicAuth = HttpHeaders.encodeBasicAuth(username, password, StandardCharsets.UTF_8);
+    } else {
+      basicAuth = null;
     }
 
     this.host = host;
+    this.searchEngineBulkExecutor = searchEngineBulkExecutor;
+    this.bulkPermits = new Semaphore(maxInFlight);
+    this.refreshPolicy = refreshPolicy;
+    this.messageBus = messageBus;
+    this.retryMaxAttempts = retryMaxAttempts;
+    this.retryInitialDelay = retryInitialDelay;
+    this.retryMaxDelay = retryMaxDelay;
+    this.compressionThreshold = compressionEnabled ? compressionThreshold : -1;
+    this.deleteMaxTermsCount = deleteMaxTermsCount;
+    this.rolloverEnabled = rolloverEnabled;
+    this.rolloverMaxAge = rolloverMaxAge;
+    this.rolloverInterval = rolloverInterval;
+    this.refreshInterval = refreshInterval;
+    // own threads, so index maintenance isn't delayed by long-running jobs of the shared scheduler
+    this.maintenanceScheduler = new ThreadPoolTaskScheduler();
+    this.maintenanceScheduler.setPoolSize(2);
+    this.maintenanceScheduler.setThreadNamePrefix("search-engine-maintenance-");
+    this.maintenanceScheduler.setDaemon(true);
+    this.indexManager = new LogIndexManager(host, restTemplate, this::getStringHttpEntity,
+        searchEngineBulkExecutor, indexCacheSize);
+    this.deleteTasks = new DeleteTaskTracker(host, restTemplate, this::getStringHttpEntity,
+        deleteMaxRunningTasks, deleteTaskTimeout, deletePollInterval);
+    this.deletePollInterval = deletePollInterval;
+  }
+
+  private static RestTemplate createRestTemplate(int maxConnections,
+      int maxConnectionsPerRoute) {
+    PoolingHttpClientConnectionManager connectionManager =
+        PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnectionsPerRoute)
+            .build();
+    CloseableHttpClient httpClient = HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .build();
+    return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+  }
+
+  /**
+   * Bootstraps templates of log indices once the application is ready, off the startup path.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void bootstrapIndexTemplates() {
+    indexManager.bootstrapTemplates();
+  }
+
+  @PostConstruct
+  public void scheduleMaintenance() {
+    maintenanceScheduler.initialize();
+    maintenanceScheduler.scheduleWithFixedDelay(this::refreshTouchedIndices,
+        Duration.ofMillis(refreshInterval));
+    maintenanceScheduler.scheduleWithFixedDelay(deleteTasks::poll,
+        Duration.ofMillis(deletePollInterval));
+    if (rolloverEnabled) {
+      maintenanceScheduler.scheduleWithFixedDelay(this::rolloverIndices,
+          Duration.ofMillis(rolloverInterval));
+    }
+  }
+
+  @PreDestroy
+  public void stopMaintenance() {
+    maintenanceScheduler.shutdown();
+  }
+
+  /**
+   * Rolls over log data streams by age, so each backing index holds logs of a time bucket.
+   */
+  public void rolloverIndices() {
+    if (rolloverEnabled) {
+      indexManager.rolloverDataStreams(rolloverMaxAge);
+    }
   }
 
   @Override
@@ -50,36 +236,171 @@ public class SimpleSearchEngineClient implements SearchEngineClient {
     if (CollectionUtils.isEmpty(logMessageList)) {
       return;
     }
-    Map<String, String> logsByIndex = new HashMap<>();
+    Map<Long, List<LogMessage>> logsByProject = new LinkedHashMap<>();
+    logMessageList.forEach(logMessage -> logsByProject.computeIfAbsent(
+        logMessage.getProjectId(), projectId -> new ArrayList<>()).add(logMessage));
 
-    String create = "{\"create\":{ }}\n";
-
-    logMessageList.forEach(logMessage -> {
-      String indexName = "logs-reportportal-" + logMessage.getProjectId();
-      String logCreateBody = create + convertToJson(logMessage) + "\n";
+    List<LogMessage> unsavedLogs;
+    if (logsByProject.size() == 1) {
+      Map.Entry<Long, List<LogMessage>> entry = logsByProject.entrySet().iterator().next();
+      unsavedLogs = sendBulk(entry.getKey(), entry.getValue());
+    } else {
+      // amount of requests in flight is limited by bulk permits, not by the executor
+      List<CompletableFuture<List<LogMessage>>> requests = logsByProject.entrySet().stream()
+          .map(entry -> CompletableFuture.supplyAsync(
+              () -> sendBulk(entry.getKey(), entry.getValue()), searchEngineBulkExecutor))
+          .toList();
+      CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).join();
+      unsavedLogs = new ArrayList<>();
+      for (CompletableFuture<List<LogMessage>> request : requests) {
+        unsavedLogs.addAll(request.join());
+      }
+    }
+    if (!unsavedLogs.isEmpty()) {
+      throw new SearchEngineUnavailableException(
+          unsavedLogs.size() + " logs were not saved, search engine is unavailable", unsavedLogs);
+    }
+  }
 
-      if (logsByIndex.containsKey(indexName)) {
-        logsByIndex.put(indexName, logsByIndex.get(indexName) + logCreateBody);
-      } else {
-        logsByIndex.put(indexName, logCreateBody);
+  /**
+   * Sends logs of a project, retrying transient failures. Each request holds a bulk permit, so
+   * amount of bulk requests in flight is limited whichever thread sends them.
+   *
+   * @return Logs not saved because the search engine stayed unavailable
+   */
+  private List<LogMessage> sendBulk(Long projectId, List<LogMessage> logs) {
+    String indexName = indexManager.resolveIndex(projectId);
+    if (refreshPolicy == RefreshPolicy.NONE) {
+      touchedIndices.add(indexName);
+    }
+    List<LogMessage> pending = logs;
+    for (int attempt = 1; ; attempt++) {
+      final List<LogMessage> batch = pending;
+      try {
+        BulkResult result;
+        bulkPermits.acquireUninterruptibly();
+        try {
+          result = restTemplate.execute(
+              host + "/" + indexName + "/_bulk" + refreshPolicy.getQuery(), HttpMethod.PUT,
+              request -> writeBulkRequest(request, batch),
+              response -> BulkResponseParser.parse(response.getBody())
+          );
+        } finally {
+          bulkPermits.release();
+        }
+        if (result == null) {
+          return List.of();
+        }
+        if (!result.failedItems().isEmpty()) {
+          LOGGER.error("{} logs were rejected by {}, first error: {}",
+              result.failedItems().size(), indexName, result.firstError());
+          messageBus.publishDeadLetterLogs(select(batch, result.failedItems()));
+        }
+        pending = select(batch, result.retryableItems());
+        if (pending.isEmpty()) {
+          return List.of();
+        }
+      } catch (RestClientException e) {
+        if (!isRetryable(e)) {
+          LOGGER.error("Bulk request of {} logs to {} failed: {}", batch.size(), indexName,
+              e.getMessage());
+          messageBus.publishDeadLetterLogs(batch);
+          return List.of();
+        }
+        LOGGER.warn("Bulk request to {} failed on attempt {}: {}", indexName, attempt,
+            e.getMessage());
+      }
+      if (attempt >= retryMaxAttempts || !sleepBeforeRetry(attempt)) {
+        LOGGER.error("{} logs were not saved to {} after {} attempts", pending.size(), indexName,
+            attempt);
+        return pending;
       }
-    });
+    }
+  }
+
+  private static List<LogMessage> select(List<LogMessage> logs, List<Integer> positions) {
+    List<LogMessage> selected = new ArrayList<>(positions.size());
+    positions.forEach(position -> selected.add(logs.get(position)));
+    return selected;
+  }
+
+  private static boolean isRetryable(RestClientException e) {
+    if (e instanceof RestClientResponseException responseException) {
+      int status = responseException.getStatusCode().value();
+      return status == 429 || status >= 500;
+    }
+    return e instanceof ResourceAccessException;
+  }
+
+  /**
+   * Sleeps for an exponentially growing delay with jitter.
+   *
+   * @return false if the thread was interrupted
+   */
+  private boolean sleepBeforeRetry(int attempt) {
+    long delay = Math.min(retryMaxDelay, retryInitialDelay << Math.min(attempt - 1, 20));
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(delay / 2, delay + 1));
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Refreshes indices written since the previous call, so new logs become searchable when bulk
+   * requests don't refresh them.
+   */
+  public void refreshTouchedIndices() {
+    if (touchedIndices.isEmpty()) {
+      return;
+    }
+    List<String> indices = new ArrayList<>(touchedIndices);
+    indices.forEach(touchedIndices::remove);
+    try {
+      restTemplate.postForObject(
+          host + "/" + String.join(",", indices) + "/_refresh?ignore_unavailable=true",
+          getStringHttpEntity(null), String.class
+      );
+    } catch (Exception exception) {
+      LOGGER.warn("Refresh of indices {} failed: {}", indices, exception.getMessage());
+    }
+  }
 
-    logsByIndex.forEach(
-        (indexName, body) -> restTemplate.put(host + "/" + indexName + "/_bulk?refresh",
-            getStringHttpEntity(body)
-        ));
+  private void writeBulkRequest(ClientHttpRequest request, List<LogMessage> logs)
+      throws IOException {
+    writeBody(request, LogBulkWriter.estimateSize(logs),
+        outputStream -> LogBulkWriter.write(logs, outputStream));
+  }
+
+  /**
+   * Sets headers and streams the body of a request, compressing it if its size reaches the
+   * threshold.
+   */
+  private void writeBody(ClientHttpRequest request, long size,
+      StreamingHttpOutputMessage.Body body) throws IOException {
+    setHeaders(request.getHeaders());
+    StreamingHttpOutputMessage.Body encodedBody = RequestBodyEncoder.encode(body, size,
+        compressionThreshold, request.getHeaders());
+    if (request instanceof StreamingHttpOutputMessage streamingRequest) {
+      streamingRequest.setBody(encodedBody);
+    } else {
+      encodedBody.writeTo(request.getBody());
+    }
   }
 
   @Override
   public void deleteLogsByLaunchIdAndProjectId(Long launchId, Long projectId) {
-    String indexName = "logs-reportportal-" + projectId;
+    String indexName = LogIndexManager.indexName(projectId);
     try {
-      JSONObject deleteByLaunch = getDeleteLaunchJson(launchId);
-      HttpEntity<String> deleteRequest = getStringHttpEntity(deleteByLaunch.toString());
+      byte[] deleteByLaunch = getDeleteLaunchJson(launchId).toString()
+          .getBytes(StandardCharsets.UTF_8);
 
-      restTemplate.postForObject(host + "/" + indexName + "/_delete_by_query", deleteRequest,
-          JSONObject.class
+      restTemplate.execute(host + "/" + indexName + "/_delete_by_query", HttpMethod.POST,
+          request -> writeBody(request, deleteByLaunch.length,
+              outputStream -> outputStream.write(deleteByLaunch)),
+          null
       );
     } catch (Exception exception) {
       // to avoid checking of exists stream or not
@@ -87,6 +408,85 @@ public class SimpleSearchEngineClient implements SearchEngineClient {
     }
   }
 
+  /**
+   * Starts delete-by-query tasks with a {@code terms} query, one per chunk of launch ids limited
+   * by max terms count. Waits for a permit before starting each task, so amount of running tasks
+   * stays limited. Running tasks are polled while waiting, so the wait ends even if the
+   * maintenance scheduler is busy.
+   */
+  @Override
+  public void deleteLogsByLaunchIdsAndProjectId(Collection<Long> launchIds, Long projectId) {
+    String indexName = LogIndexManager.indexName(projectId);
+    for (List<Long> chunk : Iterables.partition(launchIds, deleteMaxTermsCount)) {
+      if (!deleteTasks.acquire()) {
+        return;
+      }
+      try {
+        String taskId = restTemplate.execute(host + "/" + indexName
+                + "/_delete_by_query?wait_for_completion=false&conflicts=proceed"
+                + "&ignore_unavailable=true", HttpMethod.POST,
+            request -> writeBody(request, (long) chunk.size() * Long.BYTES,
+                outputStream -> writeDeleteByLaunchIds(chunk, outputStream)),
+            response -> new JSONObject(
+                StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8))
+                .getString("task")
+        );
+        deleteTasks.started(taskId);
+        LOGGER.info("Started deletion of logs of {} launches from {}, task {}", chunk.size(),
+            indexName, taskId);
+      } catch (Exception exception) {
+        deleteTasks.release();
+        LOGGER.warn("Deletion of logs of {} launches from {} failed: {}", chunk.size(),
+            indexName, exception.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Deletes expired backing indices of the project data stream. Indices are kept if more launches
+   * are retained than a terms query can check.
+   */
+  @Override
+  public void deleteExpiredLogIndices(Long projectId, LocalDateTime lessThanDate,
+      Collection<Long> retainedLaunchIds) {
+    if (!rolloverEnabled) {
+      return;
+    }
+    if (retainedLaunchIds.size() > deleteMaxTermsCount) {
+      LOGGER.warn("Project {} retains {} launches, expired log indices are kept", projectId,
+          retainedLaunchIds.size());
+      return;
+    }
+    try {
+      List<String> expiredIndices = indexManager.findExpiredBackingIndices(projectId,
+          lessThanDate, retainedLaunchIds);
+      if (!expiredIndices.isEmpty()) {
+        indexManager.deleteIndices(expiredIndices);
+        LOGGER.info("Deleted expired log indices {} of project {}", expiredIndices, projectId);
+      }
+    } catch (Exception exception) {
+      LOGGER.warn("Deletion of expired log indices of project {} failed: {}", projectId,
+          exception.getMessage());
+    }
+  }
+
+  private static void writeDeleteByLaunchIds(List<Long> launchIds, OutputStream outputStream)
+      throws IOException {
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream)) {
+      generator.writeStartObject();
+      generator.writeObjectFieldStart("query");
+      generator.writeObjectFieldStart("terms");
+      generator.writeArrayFieldStart("launchId");
+      for (Long launchId : launchIds) {
+        generator.writeNumber(launchId);
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+      generator.writeEndObject();
+      generator.writeEndObject();
+    }
+  }
+
   private JSONObject getDeleteLaunchJson(Long launchId) {
     JSONObject match = new JSONObject();
     match.put("launchId", launchId);
@@ -100,21 +500,17 @@ public class SimpleSearchEngineClient implements SearchEngineClient {
     return deleteByLaunch;
   }
 
-  private JSONObject convertToJson(LogMessage logMessage) {
-    JSONObject personJsonObject = new JSONObject();
-    personJsonObject.put("id", logMessage.getId());
-    personJsonObject.put("message", logMessage.getLogMessage());
-    personJsonObject.put("itemId", logMessage.getItemId());
-    personJsonObject.put("@timestamp", logMessage.getLogTime());
-    personJsonObject.put("launchId", logMessage.getLaunchId());
-
-    return personJsonObject;
-  }
-
   private HttpEntity<String> getStringHttpEntity(String body) {
     HttpHeaders headers = new HttpHeaders();
-    headers.setContentType(MediaType.APPLICATION_JSON);
+    setHeaders(headers);
 
     return new HttpEntity<>(body, headers);
   }
+
+  private void setHeaders(HttpHeaders headers) {
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    if (basicAuth != null) {
+      headers.setBasicAuth(basicAuth);
+    }
+  }
 }
@@ -1,11 +1,20 @@
 package com.epam.reportportal.jobs.clean;
 
-import static java.time.Duration.ofSeconds;
-
 import com.epam.reportportal.jobs.BaseJob;
+import com.epam.reportportal.jobs.clean.CleanJobCheckpoints.Checkpoint;
 import java.time.Duration;
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 /**
@@ -17,28 +26,236 @@ public abstract class BaseCleanJob extends BaseJob {
   protected static final String KEEP_LOGS = "job.keepLogs";
   protected static final String KEEP_SCREENSHOTS = "job.keepScreenshots";
 
-  protected final String SELECT_PROJECTS_ATTRIBUTES =
-      """
-          SELECT pa.project_id AS id, pa.value AS attribute_value FROM project_attribute pa\s
-          JOIN attribute a ON pa.attribute_id = a.id WHERE a.name = ? AND pa.value != '0' AND TRIM(pa.value) != '';""";
+  /**
+   * Max amount of rows counted to estimate cost of a project.
+   */
+  protected static final int COST_SAMPLE_LIMIT = 10000;
+  /**
+   * Time an estimated cost of a project is reused by following runs for.
+   */
+  private static final Duration COST_TTL = Duration.ofHours(6);
+  private static final long MAX_BACKLOG_HOURS = 24;
+
+  protected static final String SELECT_RETAINED_LAUNCH_IDS_QUERY =
+      "SELECT id FROM launch WHERE project_id = ? AND retention_policy != 'REGULAR'";
+
+  private final RetentionPolicySnapshot retentionPolicies;
+  private final Map<Long, EstimatedCost> costs = new ConcurrentHashMap<>();
 
-  public BaseCleanJob(JdbcTemplate jdbcTemplate) {
+  public BaseCleanJob(JdbcTemplate jdbcTemplate, RetentionPolicySnapshot retentionPolicies) {
     super(jdbcTemplate);
+    this.retentionPolicies = retentionPolicies;
+  }
+
+  /**
+   * @param attributeKey Retention attribute
+   * @return Retention durations of projects from the shared snapshot
+   */
+  protected ProjectRetentions getProjectsWithAttribute(String attributeKey) {
+    return retentionPolicies.getProjects(attributeKey);
   }
 
-  protected Map<Long, Duration> getProjectsWithAttribute(String attributeKey) {
-    return jdbcTemplate.query(SELECT_PROJECTS_ATTRIBUTES, rs -> {
-      Map<Long, Duration> result = new HashMap<>();
-      while (rs.next()) {
-        String attributeValue = rs.getString("attribute_value");
+  /**
+   * Makes the next read of retention settings load them from the database. Called when a scheduled
+   * run starts, so jobs it chains share the settings read by it.
+   */
+  protected void refreshRetentionPolicies() {
+    retentionPolicies.invalidate();
+  }
+
+  /**
+   * Processes projects concurrently on the executor of the schedule, isolating failures of a
+   * project from the others.
+   *
+   * <p>Projects left unfinished by the previous run go first, the others are ordered by their
+   * estimated cost divided by the age of their backlog, so cheap projects are done first while
+   * projects waiting longer move forward. Costs are estimated for projects that are not continued
+   * only, and reused for {@link #COST_TTL}, so ordering doesn't delay the run with a count per
+   * project every time. A project is processed in slices limited by time: a slice that runs out
+   * of time is put to the end of the executor queue, so large projects take turns with small ones
+   * instead of occupying all workers.
+   *
+   * <p>No slices are started once the run budget is spent, projects left continue on the next
+   * run from their checkpoints. Projects postponed before their first slice get an uncompleted
+   * checkpoint, so they go first on the next run instead of losing to cheaper projects again.
+   *
+   * @param projects Retention durations of projects
+   * @param schedule Scheduling settings of the job
+   * @param slice    Slice of project processing
+   */
+  protected void processProjects(ProjectRetentions projects, ProjectSchedule schedule,
+      ProjectSlice slice) {
+    long runDeadline = System.nanoTime() + schedule.runBudget().toNanos();
+    List<ScheduledProject> ordered = orderProjects(projects, schedule);
+    CountDownLatch remaining = new CountDownLatch(ordered.size());
+    AtomicInteger postponed = new AtomicInteger();
+    ordered.forEach(project -> submitSlice(project, false, schedule, runDeadline, slice,
+        remaining, postponed));
+    try {
+      remaining.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (postponed.get() > 0) {
+      LOGGER.info("Run budget {} is spent, {} of {} projects are postponed to the next run",
+          schedule.runBudget(), postponed.get(), ordered.size());
+    }
+  }
+
+  private List<ScheduledProject> orderProjects(ProjectRetentions projects,
+      ProjectSchedule schedule) {
+    Map<Long, Checkpoint> checkpoints = schedule.checkpoints().findAll(schedule.jobName());
+    LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+    List<ScheduledProject> scheduled = new ArrayList<>(projects.size());
+    projects.forEach((projectId, duration) -> {
+      LocalDateTime cutoff = now.minus(duration);
+      Checkpoint checkpoint = checkpoints.get(projectId);
+      if (checkpoint != null && schedule.checkpoints().isSkipped(checkpoint, cutoff)) {
+        return;
+      }
+      long fromKey = checkpoint == null ? 0 : checkpoint.lastKey();
+      if (checkpoint != null && !checkpoint.completed()) {
+        scheduled.add(new ScheduledProject(projectId, duration, cutoff, fromKey, true, 0));
+        return;
+      }
+      long backlogHours = checkpoint == null ? MAX_BACKLOG_HOURS : Math.min(MAX_BACKLOG_HOURS,
+          Duration.between(checkpoint.cutoff(), cutoff).toHours());
+      scheduled.add(new ScheduledProject(projectId, duration, cutoff, fromKey, false,
+          (double) getCost(projectId, cutoff, fromKey) / (1 + backlogHours)));
+    });
+    scheduled.sort(Comparator.comparing((ScheduledProject project) -> !project.continued())
+        .thenComparingDouble(ScheduledProject::priority));
+    return scheduled;
+  }
+
+  private long getCost(Long projectId, LocalDateTime cutoff, long fromKey) {
+    long now = System.nanoTime();
+    EstimatedCost estimated = costs.get(projectId);
+    if (estimated != null && now - estimated.estimatedAt() < COST_TTL.toNanos()) {
+      return estimated.cost();
+    }
+    try {
+      long cost = estimateCost(projectId, cutoff, fromKey);
+      costs.put(projectId, new EstimatedCost(cost, now));
+      return cost;
+    } catch (DataAccessException e) {
+      LOGGER.warn("Failed to estimate cost of project {}: {}", projectId, e.getMessage());
+      return COST_SAMPLE_LIMIT;
+    }
+  }
+
+  /**
+   * Estimates pending work of a project, e.g. with a count of expired rows limited by
+   * {@link #COST_SAMPLE_LIMIT}, so the estimate stays cheap for large projects.
+   *
+   * @param projectId Project id
+   * @param cutoff    Cutoff date of the run
+   * @param fromKey   Key the run starts after, kept by the last complete run
+   * @return Estimated cost, all projects are equal by default
+   */
+  protected long estimateCost(Long projectId, LocalDateTime cutoff, long fromKey) {
+    return 0;
+  }
+
+  /**
+   * @param started Whether a slice of the project was processed by this run
+   */
+  private void submitSlice(ScheduledProject project, boolean started, ProjectSchedule schedule,
+      long runDeadline, ProjectSlice slice, CountDownLatch remaining, AtomicInteger postponed) {
+    Long projectId = project.projectId();
+    try {
+      schedule.executor().execute(() -> {
+        if (isExpired(runDeadline)) {
+          if (!started && !project.continued()) {
+            markPostponed(project, schedule);
+          }
+          postponed.incrementAndGet();
+          remaining.countDown();
+          return;
+        }
+        long deadline = System.nanoTime() + schedule.sliceTime().toNanos();
+        boolean done = true;
         try {
-          result.put(rs.getLong("id"), ofSeconds(Long.parseLong(attributeValue)));
-        } catch (NumberFormatException e) {
-          LOGGER.error("Bad attribute value format for {}. Expected a number, actual is {}",
-              attributeKey, attributeValue);
+          done = slice.process(projectId, project.duration(),
+              deadline - runDeadline > 0 ? runDeadline : deadline);
+        } catch (Exception e) {
+          LOGGER.error("Error occurred while processing project {}", projectId, e);
         }
-      }
-      return result;
-    }, attributeKey);
+        if (done) {
+          remaining.countDown();
+        } else {
+          submitSlice(project, true, schedule, runDeadline, slice, remaining, postponed);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      LOGGER.warn("Processing of project {} is rejected: {}", projectId, e.getMessage());
+      remaining.countDown();
+    }
+  }
+
+  /**
+   * Saves an uncompleted checkpoint to process the project after the key kept by its last complete
+   * run.
+   */
+  private void markPostponed(ScheduledProject project, ProjectSchedule schedule) {
+    try {
+      schedule.checkpoints().save(schedule.jobName(), project.projectId(), project.fromKey(),
+          project.cutoff());
+    } catch (DataAccessException e) {
+      LOGGER.warn("Failed to save checkpoint of postponed project {}: {}", project.projectId(),
+          e.getMessage());
+    }
+  }
+
+  /**
+   * @return {@code true} if the deadline of a slice has passed
+   */
+  protected static boolean isExpired(long deadline) {
+    return System.nanoTime() - deadline >= 0;
+  }
+
+  /**
+   * @return Ids of project launches whose data is kept regardless of retention settings
+   */
+  protected List<Long> getRetainedLaunchIds(Long projectId) {
+    return jdbcTemplate.queryForList(SELECT_RETAINED_LAUNCH_IDS_QUERY, Long.class, projectId);
+  }
+
+  /**
+   * Slice of processing of a project.
+   */
+  @FunctionalInterface
+  protected interface ProjectSlice {
+
+    /**
+     * @param projectId Project id
+     * @param duration  Retention duration of the project
+     * @param deadline  {@link System#nanoTime()} the slice should stop at
+     * @return {@code true} if the project is processed, {@code false} if the slice ran out of time
+     */
+    boolean process(Long projectId, Duration duration, long deadline);
+  }
+
+  /**
+   * Scheduling settings of a job.
+   *
+   * @param jobName     Job name, used for checkpoints
+   * @param executor    Executor of slices, its pool size limits amount of projects in process
+   * @param sliceTime   Time a slice may take before giving way to other projects
+   * @param runBudget   Time slices may be started within after a run starts
+   * @param checkpoints Checkpoints of projects
+   */
+  protected record ProjectSchedule(String jobName, Executor executor, Duration sliceTime,
+      Duration runBudget, CleanJobCheckpoints checkpoints) {
+
+  }
+
+  private record ScheduledProject(Long projectId, Duration duration, LocalDateTime cutoff,
+      long fromKey, boolean continued, double priority) {
+
+  }
+
+  private record EstimatedCost(long cost, long estimatedAt) {
+
   }
 }
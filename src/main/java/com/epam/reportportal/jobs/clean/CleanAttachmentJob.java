@@ -1,9 +1,14 @@
 package com.epam.reportportal.jobs.clean;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Optional;
+import java.util.OptionalLong;
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -12,46 +17,113 @@ import org.springframework.stereotype.Service;
  * Moving data from attachment table to attachment_deletion by storage policy for future deletion
  * that attachment from storage by another job.
  *
+ * <p>Attachments are moved in chunks ordered by id, the last moved id of a project is persisted
+ * in {@link CleanJobCheckpoints}, so an interrupted run resumes after it. Projects are processed
+ * concurrently on {@code cleanAttachmentExecutor} in slices limited by time, see
+ * {@link #processProjects}.
+ *
  * @author <a href="mailto:pavel_bortnik@epam.com">Pavel Bortnik</a>
  */
 @Service
 public class CleanAttachmentJob extends BaseCleanJob {
 
+  private static final String JOB_NAME = "cleanAttachment";
+
   private static final String MOVING_QUERY = """
       WITH moved_rows AS (
-        DELETE FROM attachment\s
-        WHERE project_id = ?\s
-        AND creation_date <= ?::TIMESTAMP\s
-        AND launch_id NOT IN (
-          SELECT id FROM launch WHERE retention_policy='IMPORTANT'
-        )\s
+        DELETE FROM attachment
+        WHERE id IN (
+          SELECT id FROM attachment
+          WHERE project_id = ? AND creation_date <= ?::TIMESTAMP AND id > ?
+            AND launch_id NOT IN (SELECT id FROM launch WHERE retention_policy = 'IMPORTANT')
+          ORDER BY id LIMIT ?
+        )
         RETURNING *
-      					)
-           INSERT INTO attachment_deletion (id, file_id, thumbnail_id, creation_attachment_date,
-      deletion_date)
-      SELECT id, file_id, thumbnail_id, creation_date, NOW() FROM moved_rows;""";
+      ), inserted_rows AS (
+        INSERT INTO attachment_deletion (id, file_id, thumbnail_id, creation_attachment_date,
+                                         deletion_date)
+        SELECT id, file_id, thumbnail_id, creation_date, NOW() FROM moved_rows
+      )
+      SELECT COUNT(*) AS moved, COALESCE(MAX(id), 0) AS last_id FROM moved_rows;""";
+
+  private static final String COUNT_ATTACHMENTS_QUERY = """
+      SELECT COUNT(*) FROM (
+        SELECT 1 FROM attachment
+        WHERE project_id = ? AND creation_date <= ?::TIMESTAMP AND id > ?
+        LIMIT ?
+      ) attachments""";
 
-  public CleanAttachmentJob(JdbcTemplate jdbcTemplate) {
-    super(jdbcTemplate);
+  private final int chunkSize;
+  private final CleanJobCheckpoints checkpoints;
+  private final ProjectSchedule schedule;
+
+  public CleanAttachmentJob(JdbcTemplate jdbcTemplate,
+      @Value("${rp.environment.variable.batch-size:10000}") int chunkSize,
+      CleanJobCheckpoints checkpoints, RetentionPolicySnapshot retentionPolicies,
+      @Qualifier("cleanAttachmentExecutor") TaskExecutor cleanAttachmentExecutor,
+      @Value("${rp.environment.variable.clean.sliceTime:PT1M}") Duration sliceTime,
+      @Value("${rp.environment.variable.clean.attachment.runBudget:PT1H}") Duration runBudget) {
+    super(jdbcTemplate, retentionPolicies);
+    this.chunkSize = chunkSize;
+    this.checkpoints = checkpoints;
+    this.schedule = new ProjectSchedule(JOB_NAME, cleanAttachmentExecutor, sliceTime, runBudget,
+        checkpoints);
   }
 
   @Override
   @Scheduled(cron = "${rp.environment.variable.clean.attachment.cron}")
-  @SchedulerLock(name = "cleanAttachment", lockAtMostFor = "24h")
+  @SchedulerLock(name = JOB_NAME, lockAtMostFor = "24h")
   public void execute() {
+    refreshRetentionPolicies();
     moveAttachments();
   }
 
   void moveAttachments() {
-    AtomicInteger counter = new AtomicInteger(0);
-    getProjectsWithAttribute(KEEP_SCREENSHOTS).forEach((projectId, duration) -> {
-      LocalDateTime lessThanDate = LocalDateTime.now(ZoneOffset.UTC).minus(duration);
-      int movedCount = jdbcTemplate.update(MOVING_QUERY, projectId, lessThanDate);
-      counter.addAndGet(movedCount);
-      LOGGER.info(
-          "Moved {} attachments to the deletion table for project {}, lessThanDate {} ", movedCount,
-          projectId, lessThanDate
-      );
-    });
+    processProjects(getProjectsWithAttribute(KEEP_SCREENSHOTS), schedule, this::moveAttachments);
+  }
+
+  /**
+   * Estimates cost of a project by expired attachments left, counting up to
+   * {@link #COST_SAMPLE_LIMIT} of them.
+   */
+  @Override
+  protected long estimateCost(Long projectId, LocalDateTime cutoff, long fromKey) {
+    return Optional.ofNullable(jdbcTemplate.queryForObject(COUNT_ATTACHMENTS_QUERY, Long.class,
+        projectId, cutoff, fromKey, COST_SAMPLE_LIMIT)).orElse(0L);
+  }
+
+  /**
+   * Moves expired attachments of a project until the deadline.
+   *
+   * @return {@code false} if attachments are left because the deadline has passed
+   */
+  private boolean moveAttachments(Long projectId, Duration duration, long deadline) {
+    LocalDateTime lessThanDate = LocalDateTime.now(ZoneOffset.UTC).minus(duration);
+    OptionalLong checkpoint = checkpoints.start(JOB_NAME, projectId, lessThanDate);
+    if (checkpoint.isEmpty()) {
+      return true;
+    }
+    long lastId = checkpoint.getAsLong();
+    long movedCount = 0;
+    long[] chunk;
+    do {
+      chunk = jdbcTemplate.queryForObject(MOVING_QUERY,
+          (rs, rowNum) -> new long[] {rs.getLong("moved"), rs.getLong("last_id")}, projectId,
+          lessThanDate, lastId, chunkSize);
+      if (chunk[0] > 0) {
+        movedCount += chunk[0];
+        lastId = chunk[1];
+        checkpoints.save(JOB_NAME, projectId, lastId, lessThanDate);
+      }
+    } while (chunk[0] == chunkSize && !isExpired(deadline));
+    boolean done = chunk[0] < chunkSize;
+    if (done) {
+      checkpoints.complete(JOB_NAME, projectId, lessThanDate);
+    }
+    LOGGER.info(
+        "Moved {} attachments to the deletion table for project {}, lessThanDate {} ", movedCount,
+        projectId, lessThanDate
+    );
+    return done;
   }
 }
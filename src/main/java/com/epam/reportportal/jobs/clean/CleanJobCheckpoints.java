@@ -0,0 +1,188 @@
+package com.epam.reportportal.jobs.clean;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Persisted progress of clean jobs per project: the last processed key and the cutoff date of the
+ * run. A run interrupted by a restart or an expired lock resumes after the last processed key,
+ * and a project whose cutoff hasn't advanced by the configured amount since its last complete run
+ * is skipped.
+ *
+ * <p>The {@code clean_job_checkpoint} table is created by a schema migration, see
+ * {@code migrations/clean_job_checkpoint.up.sql}. Until the table exists, projects are processed
+ * from the beginning on every run and progress is not saved. Existence of the table is checked
+ * again at most once per {@link #TABLE_CHECK_INTERVAL}.
+ */
+@Component
+public class CleanJobCheckpoints {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CleanJobCheckpoints.class);
+
+  private static final Duration TABLE_CHECK_INTERVAL = Duration.ofMinutes(10);
+
+  private static final String TABLE_EXISTS_QUERY =
+      "SELECT to_regclass('clean_job_checkpoint') IS NOT NULL";
+  private static final String SELECT_QUERY = """
+      SELECT last_key, cutoff, completed FROM clean_job_checkpoint
+      WHERE job_name = ? AND project_id = ?""";
+  private static final String SELECT_ALL_QUERY = """
+      SELECT project_id, last_key, cutoff, completed FROM clean_job_checkpoint
+      WHERE job_name = ?""";
+  private static final String UPSERT_QUERY = """
+      INSERT INTO clean_job_checkpoint (job_name, project_id, last_key, cutoff, completed)
+      VALUES (?, ?, ?, ?, ?)
+      ON CONFLICT (job_name, project_id) DO UPDATE
+      SET last_key = excluded.last_key, cutoff = excluded.cutoff, completed = excluded.completed,
+          updated_at = now()""";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final Duration minCutoffAdvance;
+  private volatile boolean available;
+  private volatile long nextTableCheck = System.nanoTime();
+
+  public CleanJobCheckpoints(JdbcTemplate jdbcTemplate,
+      @Value("${rp.environment.variable.clean.checkpoint.minCutoffAdvance:PT1H}")
+      Duration minCutoffAdvance) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.minCutoffAdvance = minCutoffAdvance;
+  }
+
+  /**
+   * Starts processing of a project by a job.
+   *
+   * @param jobName   Job name
+   * @param projectId Project id
+   * @param cutoff    Cutoff date of the run
+   * @return Key to process the project after: the last processed key of an interrupted run, the
+   * key kept by the last complete run or {@code 0} to process it from the beginning. An empty value
+   * if the project is to be skipped
+   */
+  public OptionalLong start(String jobName, Long projectId, LocalDateTime cutoff) {
+    if (!isAvailable()) {
+      return OptionalLong.of(0);
+    }
+    return jdbcTemplate.query(SELECT_QUERY, rs -> {
+      if (!rs.next()) {
+        return OptionalLong.of(0);
+      }
+      if (!rs.getBoolean("completed")) {
+        long lastKey = rs.getLong("last_key");
+        LOGGER.info("Resume {} for project {} after {}", jobName, projectId, lastKey);
+        return OptionalLong.of(lastKey);
+      }
+      LocalDateTime completedCutoff = rs.getTimestamp("cutoff").toLocalDateTime();
+      if (isSkipped(new Checkpoint(0, completedCutoff, true), cutoff)) {
+        LOGGER.debug("Skip {} for project {}, cutoff {} hasn't advanced since {}", jobName,
+            projectId, cutoff, completedCutoff);
+        return OptionalLong.empty();
+      }
+      return OptionalLong.of(rs.getLong("last_key"));
+    }, jobName, projectId);
+  }
+
+  /**
+   * @param jobName Job name
+   * @return Checkpoints of projects processed by the job
+   */
+  public Map<Long, Checkpoint> findAll(String jobName) {
+    if (!isAvailable()) {
+      return Map.of();
+    }
+    return jdbcTemplate.query(SELECT_ALL_QUERY, rs -> {
+      Map<Long, Checkpoint> checkpoints = new HashMap<>();
+      while (rs.next()) {
+        checkpoints.put(rs.getLong("project_id"), new Checkpoint(rs.getLong("last_key"),
+            rs.getTimestamp("cutoff").toLocalDateTime(), rs.getBoolean("completed")));
+      }
+      return checkpoints;
+    }, jobName);
+  }
+
+  /**
+   * @return {@code true} if the project is processed completely and its cutoff hasn't advanced
+   * enough since then
+   */
+  public boolean isSkipped(Checkpoint checkpoint, LocalDateTime cutoff) {
+    return checkpoint.completed()
+        && !cutoff.isAfter(checkpoint.cutoff().plus(minCutoffAdvance));
+  }
+
+  /**
+   * Saves the last processed key of a project.
+   */
+  public void save(String jobName, Long projectId, long lastKey, LocalDateTime cutoff) {
+    if (!isAvailable()) {
+      return;
+    }
+    jdbcTemplate.update(UPSERT_QUERY, jobName, projectId, lastKey, Timestamp.valueOf(cutoff),
+        false);
+  }
+
+  /**
+   * Marks processing of a project as complete for the cutoff date, the next run starts from the
+   * beginning.
+   */
+  public void complete(String jobName, Long projectId, LocalDateTime cutoff) {
+    complete(jobName, projectId, 0L, cutoff);
+  }
+
+  /**
+   * Marks processing of a project as complete for the cutoff date, the next run starts after the
+   * key.
+   */
+  public void complete(String jobName, Long projectId, long lastKey, LocalDateTime cutoff) {
+    if (!isAvailable()) {
+      return;
+    }
+    jdbcTemplate.update(UPSERT_QUERY, jobName, projectId, lastKey, Timestamp.valueOf(cutoff),
+        true);
+  }
+
+  /**
+   * @return {@code true} if the checkpoint table exists, once it is found it's not checked again
+   */
+  private boolean isAvailable() {
+    if (available) {
+      return true;
+    }
+    long now = System.nanoTime();
+    if (now - nextTableCheck < 0) {
+      return false;
+    }
+    nextTableCheck = now + TABLE_CHECK_INTERVAL.toNanos();
+    try {
+      available = Boolean.TRUE.equals(jdbcTemplate.queryForObject(TABLE_EXISTS_QUERY,
+          Boolean.class));
+    } catch (DataAccessException e) {
+      LOGGER.warn("Failed to check clean_job_checkpoint table: {}", e.getMessage());
+      return false;
+    }
+    if (!available) {
+      LOGGER.warn("Table clean_job_checkpoint doesn't exist, clean jobs process projects from "
+          + "the beginning without checkpoints");
+    }
+    return available;
+  }
+
+  /**
+   * Progress of a project.
+   *
+   * @param lastKey   Last processed key, or key the next run starts after for a complete run
+   * @param cutoff    Cutoff date of the run
+   * @param completed Whether the run is complete
+   */
+  public record Checkpoint(long lastKey, LocalDateTime cutoff, boolean completed) {
+
+  }
+}
@@ -3,100 +3,266 @@ package com.epam.reportportal.jobs.clean;
 import com.epam.reportportal.analyzer.index.IndexerServiceClient;
 import com.epam.reportportal.elastic.SearchEngineClient;
 import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.SQLException;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
+ * Removes launches of projects older than their {@code job.keepLaunches} setting.
+ *
+ * <p>Expired launch ids are read in pages ordered by id, each page is deleted before the next one
+ * is read. The last deleted id of a project is persisted in {@link CleanJobCheckpoints}, so a run
+ * interrupted by an error or a restart resumes after it instead of scanning the project from the
+ * beginning.
+ *
+ * <p>Pages are deleted in batches, each in its own transaction with bounded statement and lock
+ * time, so it doesn't block reporting for long. A batch that times out is rolled back and the
+ * rest of the page is retried with half the size, batches completed quickly grow the size back to
+ * the configured one. The batch size is kept per project, so a slow project doesn't shrink
+ * batches of the others.
+ *
+ * <p>Projects are processed concurrently on {@code cleanLaunchExecutor} in slices limited by time,
+ * see {@link #processProjects}.
+ *
  * @author <a href="mailto:pavel_bortnik@epam.com">Pavel Bortnik</a>
  */
 @Service
 public class CleanLaunchJob extends BaseCleanJob {
 
+  private static final String JOB_NAME = "cleanLaunch";
   private static final String IDS_PARAM = "ids";
   private static final String PROJECT_ID_PARAM = "projectId";
   private static final String START_TIME_PARAM = "startTime";
+  private static final String LAST_ID_PARAM = "lastId";
+  private static final String BATCH_SIZE_PARAM = "batchSize";
   private static final String SELECT_LAUNCH_ID_QUERY =
       "SELECT id FROM launch WHERE project_id = :projectId AND start_time <= "
-          + ":startTime::TIMESTAMP AND retention_policy = 'REGULAR'";
+          + ":startTime::TIMESTAMP AND retention_policy = 'REGULAR' AND id > :lastId "
+          + "ORDER BY id LIMIT :batchSize";
+  private static final String COUNT_LAUNCHES_QUERY =
+      "SELECT COUNT(*) FROM (" + SELECT_LAUNCH_ID_QUERY + ") launches";
   private static final String DELETE_CLUSTER_QUERY =
       "DELETE FROM clusters WHERE clusters.launch_id IN (:ids);";
   private static final String DELETE_LAUNCH_QUERY = "DELETE FROM launch WHERE id IN (:ids);";
+  private static final String QUERY_CANCELED_STATE = "57014";
+  private static final String LOCK_NOT_AVAILABLE_STATE = "55P03";
+  private static final String BATCH_TIMER = "rp.clean.launch.batch";
   private final Integer batchSize;
+  private final long statementTimeout;
+  private final long lockTimeout;
+  private final TransactionTemplate transactionTemplate;
+  private final Timer batchTimer;
+  private final Timer timedOutBatchTimer;
+  /**
+   * Batch size used last by any project, exposed as a gauge.
+   */
+  private volatile int currentBatchSize;
   private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
   private final CleanLogJob cleanLogJob;
   private final IndexerServiceClient indexerServiceClient;
   private final ApplicationEventPublisher eventPublisher;
   private final SearchEngineClient searchEngineClient;
+  private final CleanJobCheckpoints checkpoints;
+  private final ProjectSchedule schedule;
 
   public CleanLaunchJob(
       @Value("${rp.environment.variable.batch-size:10000}") Integer batchSize,
       JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedParameterJdbcTemplate,
       CleanLogJob cleanLogJob, IndexerServiceClient indexerServiceClient,
-      ApplicationEventPublisher eventPublisher, SearchEngineClient searchEngineClient) {
-    super(jdbcTemplate);
+      ApplicationEventPublisher eventPublisher, SearchEngineClient searchEngineClient,
+      @Value("${rp.environment.variable.clean.launch.statementTimeout:60000}")
+      long statementTimeout,
+      @Value("${rp.environment.variable.clean.launch.lockTimeout:10000}") long lockTimeout,
+      PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+      CleanJobCheckpoints checkpoints, RetentionPolicySnapshot retentionPolicies,
+      @Qualifier("cleanLaunchExecutor") TaskExecutor cleanLaunchExecutor,
+      @Value("${rp.environment.variable.clean.sliceTime:PT1M}") Duration sliceTime,
+      @Value("${rp.environment.variable.clean.launch.runBudget:PT9M}") Duration runBudget) {
+    super(jdbcTemplate, retentionPolicies);
+    this.checkpoints = checkpoints;
+    this.schedule = new ProjectSchedule(JOB_NAME, cleanLaunchExecutor, sliceTime, runBudget,
+        checkpoints);
     this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
     this.cleanLogJob = cleanLogJob;
     this.indexerServiceClient = indexerServiceClient;
     this.eventPublisher = eventPublisher;
     this.searchEngineClient = searchEngineClient;
     this.batchSize = batchSize > 65535 ? 65535 : batchSize;
+    this.currentBatchSize = this.batchSize;
+    this.statementTimeout = statementTimeout;
+    this.lockTimeout = lockTimeout;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchTimer = Timer.builder(BATCH_TIMER).tag("outcome", "deleted")
+        .register(meterRegistry);
+    this.timedOutBatchTimer = Timer.builder(BATCH_TIMER).tag("outcome", "timeout")
+        .register(meterRegistry);
+    Gauge.builder("rp.clean.launch.batch.size", this, job -> job.currentBatchSize)
+        .register(meterRegistry);
   }
 
   @Override
   @Scheduled(cron = "${rp.environment.variable.clean.launch.cron}")
-  @SchedulerLock(name = "cleanLaunch", lockAtMostFor = "24h")
+  @SchedulerLock(name = JOB_NAME, lockAtMostFor = "24h")
   public void execute() {
-    getProjectsWithAttribute(KEEP_LAUNCHES)
-        .forEach(this::removeLaunches);
+    refreshRetentionPolicies();
+    processProjects(getProjectsWithAttribute(KEEP_LAUNCHES), schedule, this::removeLaunches);
     cleanLogJob.removeLogs();
   }
 
-  private void removeLaunches(Long projectId, Duration duration) {
+  /**
+   * Estimates cost of a project by expired launches left, counting up to
+   * {@link #COST_SAMPLE_LIMIT} of them.
+   */
+  @Override
+  protected long estimateCost(Long projectId, LocalDateTime cutoff, long fromKey) {
+    return Optional.ofNullable(namedParameterJdbcTemplate.queryForObject(COUNT_LAUNCHES_QUERY,
+        Map.of(PROJECT_ID_PARAM, projectId, START_TIME_PARAM, cutoff, LAST_ID_PARAM, fromKey,
+            BATCH_SIZE_PARAM, COST_SAMPLE_LIMIT), Long.class)).orElse(0L);
+  }
+
+  /**
+   * Removes expired launches of a project until the deadline.
+   *
+   * @return {@code false} if launches are left because the deadline has passed
+   */
+  boolean removeLaunches(Long projectId, Duration duration, long deadline) {
     try {
       final LocalDateTime lessThanDate = LocalDateTime.now(ZoneOffset.UTC).minus(duration);
-      final List<Long> allLaunchIds = getLaunchIds(projectId, lessThanDate);
-      Lists.partition(allLaunchIds, batchSize)
-          .forEach(launchIds -> {
-            deleteClusters(launchIds);
-            int deleted = namedParameterJdbcTemplate.update(DELETE_LAUNCH_QUERY, Map.of(IDS_PARAM, launchIds));
-            LOGGER.info("Delete {} launches for project {}", deleted, projectId);
-            // to avoid an error message in the analyzer log, doesn't find the index
-            if (deleted > 0) {
-              indexerServiceClient.removeFromIndexLessThanLaunchDate(projectId, lessThanDate);
-              LOGGER.info("Send message for deletion to analyzer for project {}", projectId);
-
-              deleteLogsFromSearchEngineByLaunchIdsAndProjectId(launchIds, projectId);
-            }
-          });
+      OptionalLong checkpoint = checkpoints.start(JOB_NAME, projectId, lessThanDate);
+      if (checkpoint.isEmpty()) {
+        return true;
+      }
+      long lastId = checkpoint.getAsLong();
+      List<Long> page = getLaunchIds(projectId, lessThanDate, lastId, batchSize);
+      if (!page.isEmpty()) {
+        // expired indices go first, so deletion by query doesn't touch their logs
+        searchEngineClient.deleteExpiredLogIndices(projectId, lessThanDate,
+            getRetainedLaunchIds(projectId));
+      }
+      int projectBatchSize = batchSize;
+      while (!page.isEmpty()) {
+        boolean lastPage = page.size() < batchSize;
+        int deletedFromPage = 0;
+        while (deletedFromPage < page.size()) {
+          List<Long> launchIds = page.subList(deletedFromPage,
+              Math.min(page.size(), deletedFromPage + projectBatchSize));
+          BatchResult result = deleteLaunchBatch(projectId, launchIds, projectBatchSize);
+          projectBatchSize = result.nextBatchSize();
+          currentBatchSize = projectBatchSize;
+          if (result.deleted() == null) {
+            // the rest of the page is retried with the reduced batch size
+            continue;
+          }
+          onLaunchesDeleted(projectId, lessThanDate, launchIds, result.deleted());
+          deletedFromPage += launchIds.size();
+          lastId = launchIds.get(launchIds.size() - 1);
+          checkpoints.save(JOB_NAME, projectId, lastId, lessThanDate);
+          if ((deletedFromPage < page.size() || !lastPage) && isExpired(deadline)) {
+            return false;
+          }
+        }
+        page = lastPage ? List.of() : getLaunchIds(projectId, lessThanDate, lastId, batchSize);
+      }
+      checkpoints.complete(JOB_NAME, projectId, lessThanDate);
     } catch (Exception e) {
       LOGGER.error("Error occurred while removing launches for project {}", projectId, e);
     }
+    return true;
   }
 
 
+  /**
+   * Deletes clusters and launches of the batch in a transaction with bounded statement and lock
+   * time, adjusting the batch size of the project by the time it took.
+   */
+  private BatchResult deleteLaunchBatch(Long projectId, List<Long> launchIds,
+      int projectBatchSize) {
+    long start = System.nanoTime();
+    try {
+      Integer deleted = transactionTemplate.execute(status -> {
+        jdbcTemplate.execute("SET LOCAL statement_timeout = " + statementTimeout);
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeout);
+        deleteClusters(launchIds);
+        return namedParameterJdbcTemplate.update(DELETE_LAUNCH_QUERY,
+            Map.of(IDS_PARAM, launchIds));
+      });
+      long elapsed = System.nanoTime() - start;
+      batchTimer.record(elapsed, TimeUnit.NANOSECONDS);
+      LOGGER.info("Delete {} launches for project {} in {} ms", deleted, projectId,
+          TimeUnit.NANOSECONDS.toMillis(elapsed));
+      int nextBatchSize = projectBatchSize;
+      if (TimeUnit.NANOSECONDS.toMillis(elapsed) < statementTimeout / 4
+          && projectBatchSize < batchSize) {
+        nextBatchSize = Math.min(batchSize, projectBatchSize + Math.max(1, projectBatchSize / 4));
+      }
+      return new BatchResult(deleted, nextBatchSize);
+    } catch (DataAccessException e) {
+      if (!isTimeout(e) || launchIds.size() == 1) {
+        throw e;
+      }
+      long elapsed = System.nanoTime() - start;
+      timedOutBatchTimer.record(elapsed, TimeUnit.NANOSECONDS);
+      int nextBatchSize = Math.max(1, Math.min(projectBatchSize, launchIds.size()) / 2);
+      LOGGER.warn("Deletion of {} launches for project {} timed out after {} ms, batch size is "
+              + "reduced to {}: {}", launchIds.size(), projectId,
+          TimeUnit.NANOSECONDS.toMillis(elapsed), nextBatchSize, e.getMessage());
+      return new BatchResult(null, nextBatchSize);
+    }
+  }
+
+  private static boolean isTimeout(DataAccessException e) {
+    return e.getMostSpecificCause() instanceof SQLException sqlException
+        && (QUERY_CANCELED_STATE.equals(sqlException.getSQLState())
+        || LOCK_NOT_AVAILABLE_STATE.equals(sqlException.getSQLState()));
+  }
+
+  private void onLaunchesDeleted(Long projectId, LocalDateTime lessThanDate,
+      List<Long> launchIds, int deleted) {
+    // to avoid an error message in the analyzer log, doesn't find the index
+    if (deleted > 0) {
+      indexerServiceClient.removeFromIndexLessThanLaunchDate(projectId, lessThanDate);
+      LOGGER.info("Send message for deletion to analyzer for project {}", projectId);
+
+      deleteLogsFromSearchEngineByLaunchIdsAndProjectId(launchIds, projectId);
+    }
+  }
+
   private void deleteLogsFromSearchEngineByLaunchIdsAndProjectId(List<Long> launchIds,
       Long projectId) {
-    for (Long launchId : launchIds) {
-      searchEngineClient.deleteLogsByLaunchIdAndProjectId(launchId, projectId);
-      LOGGER.info("Delete logs from ES by launch {} and project {}", launchId, projectId);
-    }
+    searchEngineClient.deleteLogsByLaunchIdsAndProjectId(launchIds, projectId);
+    LOGGER.info("Delete logs from ES by {} launches and project {}", launchIds.size(), projectId);
   }
 
-  private List<Long> getLaunchIds(Long projectId, LocalDateTime lessThanDate) {
+  /**
+   * @return Page of expired launch ids following the last id, ordered by id
+   */
+  private List<Long> getLaunchIds(Long projectId, LocalDateTime lessThanDate, long lastId,
+      int pageSize) {
     return namedParameterJdbcTemplate.queryForList(SELECT_LAUNCH_ID_QUERY,
-        Map.of(PROJECT_ID_PARAM, projectId, START_TIME_PARAM, lessThanDate), Long.class
+        Map.of(PROJECT_ID_PARAM, projectId, START_TIME_PARAM, lessThanDate, LAST_ID_PARAM, lastId,
+            BATCH_SIZE_PARAM, pageSize), Long.class
     );
   }
 
@@ -124,4 +290,13 @@ public class CleanLaunchJob extends BaseCleanJob {
     )).orElse(0L));
     return resultedNumber.longValue();
   }
+
+  /**
+   * @param deleted       Amount of deleted launches or {@code null} if the batch timed out and was
+   *                      rolled back
+   * @param nextBatchSize Batch size adjusted by the time the batch took
+   */
+  private record BatchResult(Integer deleted, int nextBatchSize) {
+
+  }
 }
@@ -2,100 +2,261 @@ package com.epam.reportportal.jobs.clean;
 
 import com.epam.reportportal.analyzer.index.IndexerServiceClient;
 import com.epam.reportportal.elastic.SearchEngineClient;
+import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 /**
+ * Removes logs of projects older than their {@code job.keepLogs} setting, keeping logs of launches
+ * retained by their retention policy.
+ *
+ * <p>Regular launches of a project that still have expired logs are read once in pages ordered by
+ * id, so launches cleaned by previous runs are skipped with index lookups instead of being deleted
+ * from again. Logs are deleted chunk by chunk: logs of launches by {@code launch_id}, logs of
+ * their test items and retries by {@code item_id}. Each delete is a short statement committed on
+ * its own, so locks are held for a chunk only. Amount of deleted logs is counted by the
+ * {@code rp.clean.log.deleted} counter. Logs of the launches processed by a slice are then removed
+ * from the analyzer and the search engine.
+ *
+ * <p>The last processed launch id of a project is persisted in {@link CleanJobCheckpoints}, so an
+ * interrupted run resumes after it. A complete run keeps the id below which all launches had
+ * finished before its cutoff, so they get no more expired logs and the next runs start after it.
+ * Projects are processed concurrently on {@code cleanLogExecutor} in slices limited by time, see
+ * {@link #processProjects}.
+ *
  * @author <a href="mailto:pavel_bortnik@epam.com">Pavel Bortnik</a>
  */
 @Service
 public class CleanLogJob extends BaseCleanJob {
 
+  private static final String IDS_PARAM = "ids";
+  private static final String JOB_NAME = "cleanLog";
   private static final String PROJECT_ID_PARAM = "projectId";
   private static final String START_TIME_PARAM = "startTime";
+  private static final String LOG_TIME_PARAM = "logTime";
+  private static final String LAST_ID_PARAM = "lastId";
+  private static final String LIMIT_PARAM = "limit";
 
-  private static final String DELETE_LOGS_QUERY = """
+  private static final String SELECT_REGULAR_LAUNCH_ID_QUERY = """
+      SELECT l.id FROM launch l
+      WHERE l.project_id = :projectId AND l.start_time <= :startTime::TIMESTAMP
+        AND l.retention_policy = 'REGULAR' AND l.id > :lastId
+        AND (EXISTS (SELECT 1 FROM log
+            WHERE log.launch_id = l.id AND log.log_time <= :logTime::TIMESTAMP)
+          OR EXISTS (SELECT 1 FROM test_item item JOIN log ON log.item_id = item.item_id
+            WHERE item.launch_id = l.id AND log.log_time <= :logTime::TIMESTAMP)
+          OR EXISTS (SELECT 1 FROM test_item parent
+            JOIN test_item retry ON retry.retry_of = parent.item_id
+            JOIN log ON log.item_id = retry.item_id
+            WHERE parent.launch_id = l.id AND retry.launch_id IS NULL
+              AND log.log_time <= :logTime::TIMESTAMP))
+      ORDER BY l.id LIMIT :limit""";
+  private static final String COUNT_REGULAR_LAUNCHES_QUERY =
+      "SELECT COUNT(*) FROM (" + SELECT_REGULAR_LAUNCH_ID_QUERY + ") launches";
+  private static final String SELECT_ITEM_ID_QUERY = """
+      SELECT item_id FROM test_item WHERE launch_id IN (:ids)
+      UNION ALL
+      SELECT retry.item_id FROM test_item retry
+        JOIN test_item parent ON retry.retry_of = parent.item_id
+      WHERE parent.launch_id IN (:ids) AND retry.launch_id IS NULL""";
+  private static final String DELETE_LAUNCH_LOGS_QUERY = """
       DELETE FROM log
-      WHERE log.project_id = ? AND log.log_time <= ?::TIMESTAMP
-        AND COALESCE(log.launch_id,
-                     (SELECT test_item.launch_id FROM test_item WHERE test_item.item_id = log.item_id),
-                     (SELECT test_item.launch_id FROM test_item WHERE test_item.item_id =
-                                                                      (SELECT ti.retry_of FROM test_item ti WHERE ti.item_id = log.item_id)
-                     )
-                ) IN (SELECT launch.id FROM launch WHERE launch.retention_policy = 'REGULAR');
-      """;
-  private static final String SELECT_LAUNCH_ID_QUERY =
-      "SELECT id FROM launch WHERE project_id = :projectId AND start_time <= "
-          + ":startTime::TIMESTAMP;";
+      WHERE launch_id IN (:ids) AND project_id = :projectId AND log_time <= :logTime::TIMESTAMP""";
+  private static final String DELETE_ITEM_LOGS_QUERY = """
+      DELETE FROM log
+      WHERE item_id IN (:ids) AND launch_id IS NULL AND project_id = :projectId
+        AND log_time <= :logTime::TIMESTAMP""";
+  private static final String SELECT_FINISHED_LAUNCH_ID_QUERY = """
+      SELECT COALESCE(MIN(id) FILTER (WHERE end_time IS NULL OR end_time > :logTime::TIMESTAMP)
+          - 1, MAX(id), 0)
+      FROM launch WHERE project_id = :projectId""";
 
   private final CleanAttachmentJob cleanAttachmentJob;
   private final IndexerServiceClient indexerServiceClient;
   private final ApplicationEventPublisher eventPublisher;
   private final SearchEngineClient searchEngineClient;
   private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+  private final CleanJobCheckpoints checkpoints;
+  private final ProjectSchedule schedule;
+  private final int itemChunkSize;
+  private final int launchChunkSize;
+  private final Counter deletedCounter;
 
   public CleanLogJob(JdbcTemplate jdbcTemplate, CleanAttachmentJob cleanAttachmentJob,
       IndexerServiceClient indexerServiceClient, ApplicationEventPublisher eventPublisher,
       SearchEngineClient searchEngineClient,
-      NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
-    super(jdbcTemplate);
+      NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+      @Value("${rp.environment.variable.batch-size:10000}") int itemChunkSize,
+      @Value("${rp.environment.variable.clean.log.launchChunkSize:100}") int launchChunkSize,
+      MeterRegistry meterRegistry, CleanJobCheckpoints checkpoints,
+      RetentionPolicySnapshot retentionPolicies,
+      @Qualifier("cleanLogExecutor") TaskExecutor cleanLogExecutor,
+      @Value("${rp.environment.variable.clean.sliceTime:PT1M}") Duration sliceTime,
+      @Value("${rp.environment.variable.clean.log.runBudget:PT4M}") Duration runBudget) {
+    super(jdbcTemplate, retentionPolicies);
+    this.checkpoints = checkpoints;
+    this.schedule = new ProjectSchedule(JOB_NAME, cleanLogExecutor, sliceTime, runBudget,
+        checkpoints);
     this.cleanAttachmentJob = cleanAttachmentJob;
     this.indexerServiceClient = indexerServiceClient;
     this.eventPublisher = eventPublisher;
     this.searchEngineClient = searchEngineClient;
     this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    this.itemChunkSize = Math.min(itemChunkSize, 65535);
+    this.launchChunkSize = launchChunkSize;
+    this.deletedCounter = Counter.builder("rp.clean.log.deleted").register(meterRegistry);
   }
 
   @Override
   @Scheduled(cron = "${rp.environment.variable.clean.log.cron}")
-  @SchedulerLock(name = "cleanLog", lockAtMostFor = "24h")
+  @SchedulerLock(name = JOB_NAME, lockAtMostFor = "24h")
   public void execute() {
+    refreshRetentionPolicies();
     removeLogs();
   }
 
   void removeLogs() {
-    AtomicInteger counter = new AtomicInteger(0);
     // TODO: Need to refactor Logs to keep real it's launchId and combine code with
     // CleanLaunch to avoid duplication
-    getProjectsWithAttribute(KEEP_LOGS).forEach((projectId, duration) -> {
-      final LocalDateTime lessThanDate = LocalDateTime.now(ZoneOffset.UTC).minus(duration);
-      int deleted = jdbcTemplate.update(DELETE_LOGS_QUERY, projectId, lessThanDate);
-      counter.addAndGet(deleted);
-      LOGGER.info("Delete {} logs for project {}", deleted, projectId);
-      // to avoid error message in analyzer log, doesn't find index
-      if (deleted > 0) {
-        indexerServiceClient.removeFromIndexLessThanLogDate(projectId, lessThanDate);
-        LOGGER.info("Send message for deletion to analyzer for project {}", projectId);
-
-        final List<Long> launchIds = getLaunchIds(projectId, lessThanDate);
-        if (!launchIds.isEmpty()) {
-          deleteLogsFromSearchEngineByLaunchIdsAndProjectId(launchIds, projectId);
-        }
-      }
-    });
+    processProjects(getProjectsWithAttribute(KEEP_LOGS), schedule, this::removeLogs);
     cleanAttachmentJob.moveAttachments();
   }
 
+  /**
+   * Estimates cost of a project by regular launches with expired logs left, counting up to
+   * {@link #COST_SAMPLE_LIMIT} of them.
+   */
+  @Override
+  protected long estimateCost(Long projectId, LocalDateTime cutoff, long fromKey) {
+    return Optional.ofNullable(namedParameterJdbcTemplate.queryForObject(
+        COUNT_REGULAR_LAUNCHES_QUERY, Map.of(PROJECT_ID_PARAM, projectId, START_TIME_PARAM, cutoff,
+            LOG_TIME_PARAM, cutoff, LAST_ID_PARAM, fromKey, LIMIT_PARAM, COST_SAMPLE_LIMIT),
+        Long.class)).orElse(0L);
+  }
+
+  /**
+   * Removes expired logs of a project until the deadline, then removes logs of the launches
+   * processed by the slice from the analyzer and the search engine.
+   *
+   * @return {@code false} if logs are left because the deadline has passed
+   */
+  private boolean removeLogs(Long projectId, Duration duration, long deadline) {
+    final LocalDateTime lessThanDate = LocalDateTime.now(ZoneOffset.UTC).minus(duration);
+    Progress progress = deleteLogs(projectId, lessThanDate, deadline);
+    // to avoid error message in analyzer log, doesn't find index
+    if (!progress.launchIds().isEmpty()) {
+      indexerServiceClient.removeFromIndexLessThanLogDate(projectId, lessThanDate);
+      LOGGER.info("Send message for deletion to analyzer for project {}", projectId);
+
+      // expired indices go first, so deletion by query doesn't touch their logs
+      searchEngineClient.deleteExpiredLogIndices(projectId, lessThanDate,
+          getRetainedLaunchIds(projectId));
+      deleteLogsFromSearchEngineByLaunchIdsAndProjectId(progress.launchIds(), projectId);
+    }
+    return progress.done();
+  }
+
+  /**
+   * Deletes logs of regular launches of the project older than the date, chunk by chunk,
+   * starting after the checkpoint of the project and stopping at the deadline.
+   */
+  private Progress deleteLogs(Long projectId, LocalDateTime lessThanDate, long deadline) {
+    OptionalLong checkpoint = checkpoints.start(JOB_NAME, projectId, lessThanDate);
+    if (checkpoint.isEmpty()) {
+      return new Progress(List.of(), true);
+    }
+    long start = System.nanoTime();
+    long deleted = 0;
+    List<Long> processed = new ArrayList<>();
+    long lastId = checkpoint.getAsLong();
+    List<Long> launchIds;
+    do {
+      launchIds = namedParameterJdbcTemplate.queryForList(SELECT_REGULAR_LAUNCH_ID_QUERY,
+          Map.of(PROJECT_ID_PARAM, projectId, START_TIME_PARAM, lessThanDate, LOG_TIME_PARAM,
+              lessThanDate, LAST_ID_PARAM, lastId, LIMIT_PARAM, launchChunkSize), Long.class);
+      if (launchIds.isEmpty()) {
+        break;
+      }
+      deleted += deleteLaunchLogs(projectId, lessThanDate, launchIds);
+      processed.addAll(launchIds);
+      lastId = launchIds.get(launchIds.size() - 1);
+      checkpoints.save(JOB_NAME, projectId, lastId, lessThanDate);
+      LOGGER.debug("Delete {} logs of {} launches for project {} so far", deleted,
+          processed.size(), projectId);
+    } while (launchIds.size() == launchChunkSize && !isExpired(deadline));
+    boolean done = launchIds.size() < launchChunkSize;
+    if (done) {
+      checkpoints.complete(JOB_NAME, projectId, getFinishedLaunchId(projectId, lessThanDate),
+          lessThanDate);
+    }
+
+    long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    LOGGER.info("Delete {} logs of {} launches for project {} in {} ms, {} logs/s", deleted,
+        processed.size(), projectId, elapsed, deleted * 1000 / elapsed);
+    return new Progress(processed, done);
+  }
+
+  /**
+   * Reads launches of the project only, without probing their logs, once per complete run.
+   *
+   * @return Max launch id such that all launches of the project up to it had finished before the
+   * date, so they get no more logs expiring later
+   */
+  private long getFinishedLaunchId(Long projectId, LocalDateTime lessThanDate) {
+    return Optional.ofNullable(namedParameterJdbcTemplate.queryForObject(
+        SELECT_FINISHED_LAUNCH_ID_QUERY,
+        Map.of(PROJECT_ID_PARAM, projectId, LOG_TIME_PARAM, lessThanDate), Long.class))
+        .orElse(0L);
+  }
+
+  /**
+   * Deletes logs of launches, then logs of their test items and retries in chunks of item ids.
+   */
+  private long deleteLaunchLogs(Long projectId, LocalDateTime lessThanDate,
+      List<Long> launchIds) {
+    long deleted = namedParameterJdbcTemplate.update(DELETE_LAUNCH_LOGS_QUERY,
+        Map.of(IDS_PARAM, launchIds, PROJECT_ID_PARAM, projectId, LOG_TIME_PARAM, lessThanDate));
+    deletedCounter.increment(deleted);
+    List<Long> itemIds = namedParameterJdbcTemplate.queryForList(SELECT_ITEM_ID_QUERY,
+        Map.of(IDS_PARAM, launchIds), Long.class);
+    for (List<Long> chunk : Lists.partition(itemIds, itemChunkSize)) {
+      int chunkDeleted = namedParameterJdbcTemplate.update(DELETE_ITEM_LOGS_QUERY,
+          Map.of(IDS_PARAM, chunk, PROJECT_ID_PARAM, projectId, LOG_TIME_PARAM, lessThanDate));
+      deletedCounter.increment(chunkDeleted);
+      deleted += chunkDeleted;
+    }
+    return deleted;
+  }
+
   private void deleteLogsFromSearchEngineByLaunchIdsAndProjectId(List<Long> launchIds,
       Long projectId) {
-    for (Long launchId : launchIds) {
-      searchEngineClient.deleteLogsByLaunchIdAndProjectId(launchId, projectId);
-      LOGGER.info("Delete logs from ES by launch {} and project {}", launchId, projectId);
-    }
+    searchEngineClient.deleteLogsByLaunchIdsAndProjectId(launchIds, projectId);
+    LOGGER.info("Delete logs from ES by {} launches and project {}", launchIds.size(), projectId);
   }
 
-  private List<Long> getLaunchIds(Long projectId, LocalDateTime lessThanDate) {
-    return namedParameterJdbcTemplate.queryForList(SELECT_LAUNCH_ID_QUERY,
-        Map.of(PROJECT_ID_PARAM, projectId, START_TIME_PARAM, lessThanDate), Long.class
-    );
+  /**
+   * @param launchIds Ids of launches whose logs were deleted by the slice
+   * @param done      Whether all expired logs of the project are deleted
+   */
+  private record Progress(List<Long> launchIds, boolean done) {
+
   }
 }
@@ -0,0 +1,74 @@
+package com.epam.reportportal.jobs.clean;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Retention durations of projects, ordered by project id. Project ids are kept in a primitive
+ * array, so retention settings of all projects are stored without boxing.
+ */
+public final class ProjectRetentions {
+
+  private static final ProjectRetentions EMPTY = new ProjectRetentions(new long[0],
+      new Duration[0]);
+
+  private final long[] projectIds;
+  private final Duration[] durations;
+
+  private ProjectRetentions(long[] projectIds, Duration[] durations) {
+    this.projectIds = projectIds;
+    this.durations = durations;
+  }
+
+  public static ProjectRetentions empty() {
+    return EMPTY;
+  }
+
+  public int size() {
+    return projectIds.length;
+  }
+
+  /**
+   * Performs the action for each project in ascending order of project ids.
+   */
+  public void forEach(ProjectConsumer action) {
+    for (int i = 0; i < projectIds.length; i++) {
+      action.accept(projectIds[i], durations[i]);
+    }
+  }
+
+  /**
+   * Action on retention duration of a project.
+   */
+  @FunctionalInterface
+  public interface ProjectConsumer {
+
+    void accept(long projectId, Duration duration);
+  }
+
+  /**
+   * Collects retention durations of projects added in ascending order of project ids.
+   */
+  static final class Builder {
+
+    private long[] projectIds = new long[16];
+    private Duration[] durations = new Duration[16];
+    private int size;
+
+    Builder add(long projectId, Duration duration) {
+      if (size == projectIds.length) {
+        projectIds = Arrays.copyOf(projectIds, size * 2);
+        durations = Arrays.copyOf(durations, size * 2);
+      }
+      projectIds[size] = projectId;
+      durations[size] = duration;
+      size++;
+      return this;
+    }
+
+    ProjectRetentions build() {
+      return size == 0 ? EMPTY : new ProjectRetentions(Arrays.copyOf(projectIds, size),
+          Arrays.copyOf(durations, size));
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package com.epam.reportportal.jobs.clean;
+
+import static java.time.Duration.ofSeconds;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Retention settings of all projects shared by clean jobs. Settings of all retention attributes
+ * are loaded with a single query into {@link ProjectRetentions} keyed by primitive project ids,
+ * and kept for a short time, so a chain of clean jobs reads project attributes once.
+ *
+ * <p>The snapshot is reloaded once it is older than the configured time to live, or on the next
+ * read after {@link #invalidate()}. Clean jobs invalidate it when a scheduled run starts, so a
+ * retention period lengthened by a user is never applied late by a run.
+ */
+@Component
+public class RetentionPolicySnapshot {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RetentionPolicySnapshot.class);
+
+  private static final List<String> ATTRIBUTES = List.of(BaseCleanJob.KEEP_LAUNCHES,
+      BaseCleanJob.KEEP_LOGS, BaseCleanJob.KEEP_SCREENSHOTS);
+
+  private static final String SELECT_QUERY = """
+      SELECT pa.project_id AS id, a.name AS attribute_name, pa.value AS attribute_value
+      FROM project_attribute pa JOIN attribute a ON pa.attribute_id = a.id
+      WHERE a.name IN (?, ?, ?) AND pa.value != '0' AND TRIM(pa.value) != ''
+      ORDER BY pa.project_id""";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final long ttlNanos;
+  private volatile Snapshot snapshot;
+
+  public RetentionPolicySnapshot(JdbcTemplate jdbcTemplate,
+      @Value("${rp.environment.variable.clean.retentionSnapshot.ttl:PT5M}") Duration ttl) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.ttlNanos = ttl.toNanos();
+  }
+
+  /**
+   * @param attributeKey Retention attribute, e.g. {@code job.keepLogs}
+   * @return Retention durations of projects, ordered by project id
+   */
+  public ProjectRetentions getProjects(String attributeKey) {
+    return current().durations().getOrDefault(attributeKey, ProjectRetentions.empty());
+  }
+
+  /**
+   * Drops the snapshot, so the next read loads actual settings.
+   */
+  public void invalidate() {
+    snapshot = null;
+  }
+
+  private Snapshot current() {
+    Snapshot current = snapshot;
+    if (current == null || System.nanoTime() - current.loadedAt() >= ttlNanos) {
+      synchronized (this) {
+        current = snapshot;
+        if (current == null || System.nanoTime() - current.loadedAt() >= ttlNanos) {
+          current = load();
+          snapshot = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  private Snapshot load() {
+    Map<String, ProjectRetentions.Builder> builders = new HashMap<>();
+    ATTRIBUTES.forEach(attribute -> builders.put(attribute, new ProjectRetentions.Builder()));
+    jdbcTemplate.query(SELECT_QUERY, rs -> {
+      String attributeKey = rs.getString("attribute_name");
+      String attributeValue = rs.getString("attribute_value");
+      try {
+        builders.get(attributeKey)
+            .add(rs.getLong("id"), ofSeconds(Long.parseLong(attributeValue)));
+      } catch (NumberFormatException e) {
+        LOGGER.error("Bad attribute value format for {}. Expected a number, actual is {}",
+            attributeKey, attributeValue);
+      }
+    }, ATTRIBUTES.toArray());
+    Map<String, ProjectRetentions> durations = new HashMap<>();
+    builders.forEach((attribute, builder) -> durations.put(attribute, builder.build()));
+    return new Snapshot(System.nanoTime(), durations);
+  }
+
+  /**
+   * @param loadedAt  {@link System#nanoTime()} the snapshot was loaded at
+   * @param durations Retention durations of projects by retention attribute
+   */
+  private record Snapshot(long loadedAt, Map<String, ProjectRetentions> durations) {
+
+  }
+}
@@ -0,0 +1,108 @@
+package com.epam.reportportal.jobs.processing;
+
+import static com.epam.reportportal.jobs.processing.SaveLogMessageJob.BATCH_LISTENER_ENABLED;
+import static com.epam.reportportal.jobs.processing.SaveLogMessageJob.LOG_MESSAGE_SAVING_LISTENER_ID;
+import static com.epam.reportportal.jobs.processing.SaveLogMessageJob.LOG_MESSAGE_SAVING_QUEUE_NAME;
+
+import com.epam.reportportal.elastic.SearchEngineClient;
+import com.epam.reportportal.elastic.SearchEngineUnavailableException;
+import com.epam.reportportal.log.LogMessage;
+import com.epam.reportportal.log.LogSpool;
+import com.epam.reportportal.service.MessageBus;
+import com.rabbitmq.client.Channel;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Batch log consumer. Receives logs in batches and acknowledges a batch with a single multiple-ack
+ * only after it is saved to the search engine, so logs are indexed at least once. When the search
+ * engine is unavailable and {@link LogSpool} is enabled, the batch is acknowledged once its unsaved
+ * logs are spooled to disk.
+ *
+ * <p>Messages are converted by the consumer rather than the container, so a message that can't be
+ * converted is published to the dead letter queue as is instead of failing the whole batch, which
+ * would leave its deliveries unacknowledged.
+ */
+@Service
+@ConditionalOnProperty(prefix = "rp.searchengine", name = "host")
+@ConditionalOnExpression(BATCH_LISTENER_ENABLED)
+public class SaveLogMessageBatchJob {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SaveLogMessageBatchJob.class);
+
+  private final SearchEngineClient searchEngineClient;
+  private final LogSpool logSpool;
+  private final MessageConverter messageConverter;
+  private final MessageBus messageBus;
+
+  public SaveLogMessageBatchJob(SearchEngineClient searchEngineClient,
+      Optional<LogSpool> logSpool,
+      @Qualifier("listenerMessageConverter") MessageConverter messageConverter,
+      MessageBus messageBus) {
+    this.searchEngineClient = searchEngineClient;
+    this.logSpool = logSpool.orElse(null);
+    this.messageConverter = messageConverter;
+    this.messageBus = messageBus;
+  }
+
+  @RabbitListener(id = LOG_MESSAGE_SAVING_LISTENER_ID, queues = LOG_MESSAGE_SAVING_QUEUE_NAME,
+      containerFactory = "batchRabbitListenerContainerFactory")
+  public void execute(List<Message> messages, Channel channel) throws IOException {
+    if (messages.isEmpty()) {
+      return;
+    }
+    long lastDeliveryTag = messages.get(messages.size() - 1).getMessageProperties()
+        .getDeliveryTag();
+    List<LogMessage> logMessages = new ArrayList<>(messages.size());
+    try {
+      for (Message message : messages) {
+        convert(message).ifPresent(logMessages::add);
+      }
+      searchEngineClient.save(logMessages);
+    } catch (SearchEngineUnavailableException e) {
+      if (logSpool == null || !logSpool.append(e.getUnsavedLogs())) {
+        LOGGER.error("{}, returning batch of {} logs to the queue", e.getMessage(),
+            messages.size());
+        channel.basicNack(lastDeliveryTag, true, true);
+        return;
+      }
+    } catch (Exception e) {
+      LOGGER.error("Error occurred while saving batch of {} logs, returning it to the queue",
+          messages.size(), e);
+      channel.basicNack(lastDeliveryTag, true, true);
+      return;
+    }
+    channel.basicAck(lastDeliveryTag, true);
+  }
+
+  /**
+   * @return Converted log, or an empty value if the message is not a log and was dead-lettered
+   */
+  private Optional<LogMessage> convert(Message message) {
+    message.getMessageProperties().setInferredArgumentType(LogMessage.class);
+    try {
+      if (messageConverter.fromMessage(message) instanceof LogMessage logMessage) {
+        return Optional.of(logMessage);
+      }
+      LOGGER.error("Message {} is not a log, moving it to the dead letter queue",
+          message.getMessageProperties().getDeliveryTag());
+    } catch (MessageConversionException e) {
+      LOGGER.error("Message {} can't be converted, moving it to the dead letter queue: {}",
+          message.getMessageProperties().getDeliveryTag(), e.getMessage());
+    }
+    messageBus.publishDeadLetterMessage(message);
+    return Optional.empty();
+  }
+}
@@ -4,6 +4,7 @@ import com.epam.reportportal.log.LogMessage;
 import com.epam.reportportal.log.LogProcessing;
 import java.util.Objects;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
@@ -15,16 +16,23 @@ import org.springframework.stereotype.Service;
  */
 @Service
 @ConditionalOnProperty(prefix = "rp.searchengine", name = "host")
+@ConditionalOnExpression("!" + BATCH_LISTENER_ENABLED)
 public class SaveLogMessageJob {
 
   public static final String LOG_MESSAGE_SAVING_QUEUE_NAME = "log_message_saving";
+  public static final String LOG_MESSAGE_SAVING_LISTENER_ID = "logMessageSaving";
+  /**
+   * Batch listener is enabled with the spool by default, as only it acks logs once they are saved.
+   */
+  public static final String BATCH_LISTENER_ENABLED =
+      "${rp.processing.log.listener.batch.enabled:${rp.processing.log.spool.enabled:false}}";
   private final LogProcessing logProcessing;
 
   public SaveLogMessageJob(LogProcessing logProcessing) {
     this.logProcessing = logProcessing;
   }
 
-  @RabbitListener(queues = LOG_MESSAGE_SAVING_QUEUE_NAME,
+  @RabbitListener(id = LOG_MESSAGE_SAVING_LISTENER_ID, queues = LOG_MESSAGE_SAVING_QUEUE_NAME,
       containerFactory = "rabbitListenerContainerFactory")
   public void execute(@Payload LogMessage logMessage) {
     if (Objects.nonNull(logMessage)) {
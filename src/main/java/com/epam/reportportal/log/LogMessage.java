@@ -1,92 +1,127 @@
 package com.epam.reportportal.log;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.Objects;
+import java.time.ZoneOffset;
 
+/**
+ * Log to be saved to the search engine. Ids are kept as primitives, {@link #NO_ID} marks an
+ * absent one, log time is kept as epoch microseconds in UTC and the message as UTF-8 bytes, so
+ * logs received in binary format reach the bulk request without decoding.
+ */
 public class LogMessage implements Serializable {
 
-  private Long id;
-  private LocalDateTime logTime;
-  private String logMessage;
-  private Long itemId;
-  private Long launchId;
-  private Long projectId;
-
-  public LogMessage(Long id, LocalDateTime logTime, String logMessage, Long itemId, Long launchId,
-      Long projectId) {
+  public static final long NO_ID = 0;
+  public static final long NO_TIME = Long.MIN_VALUE;
+
+  private static final long MICROS_PER_SECOND = 1_000_000L;
+
+  private final long id;
+  private final long logTimeMicros;
+  private final byte[] logMessage;
+  private final long itemId;
+  private final long launchId;
+  private final long projectId;
+
+  /**
+   * @param id            Log id or {@link #NO_ID}
+   * @param logTimeMicros Log time in epoch microseconds in UTC or {@link #NO_TIME}
+   * @param logMessage    Message as UTF-8 bytes, nullable
+   * @param itemId        Test item id or {@link #NO_ID}
+   * @param launchId      Launch id or {@link #NO_ID}
+   * @param projectId     Project id or {@link #NO_ID}
+   */
+  public LogMessage(long id, long logTimeMicros, byte[] logMessage, long itemId, long launchId,
+      long projectId) {
     this.id = id;
-    this.logTime = logTime;
+    this.logTimeMicros = logTimeMicros;
     this.logMessage = logMessage;
     this.itemId = itemId;
     this.launchId = launchId;
     this.projectId = projectId;
   }
 
-  public Long getId() {
-    return id;
+  public LogMessage(Long id, LocalDateTime logTime, String logMessage, Long itemId, Long launchId,
+      Long projectId) {
+    this(orNoId(id), toMicros(logTime),
+        logMessage == null ? null : logMessage.getBytes(StandardCharsets.UTF_8), orNoId(itemId),
+        orNoId(launchId), orNoId(projectId));
   }
 
-  public void setId(Long id) {
-    this.id = id;
+  /**
+   * Reads the message of a JSON log straight into UTF-8 bytes, so it is not copied through a
+   * {@link String} like in the convenience constructor.
+   */
+  @JsonCreator
+  private static LogMessage fromJson(@JsonProperty("id") Long id,
+      @JsonProperty("logTime") LocalDateTime logTime,
+      @JsonProperty("logMessage") @JsonDeserialize(using = Utf8BytesDeserializer.class)
+      byte[] logMessage,
+      @JsonProperty("itemId") Long itemId, @JsonProperty("launchId") Long launchId,
+      @JsonProperty("projectId") Long projectId) {
+    return new LogMessage(orNoId(id), toMicros(logTime), logMessage, orNoId(itemId),
+        orNoId(launchId), orNoId(projectId));
   }
 
-  public LocalDateTime getLogTime() {
-    return logTime;
+  @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+  public long getId() {
+    return id;
   }
 
-  public void setLogTime(LocalDateTime logTime) {
-    this.logTime = logTime;
+  @JsonIgnore
+  public long getLogTimeMicros() {
+    return logTimeMicros;
   }
 
-  public String getLogMessage() {
-    return logMessage;
+  public LocalDateTime getLogTime() {
+    if (logTimeMicros == NO_TIME) {
+      return null;
+    }
+    return LocalDateTime.ofEpochSecond(Math.floorDiv(logTimeMicros, MICROS_PER_SECOND),
+        (int) Math.floorMod(logTimeMicros, MICROS_PER_SECOND) * 1_000, ZoneOffset.UTC);
   }
 
-  public void setLogMessage(String logMessage) {
-    this.logMessage = logMessage;
+  @JsonIgnore
+  public byte[] getLogMessageBytes() {
+    return logMessage;
   }
 
-  public Long getItemId() {
-    return itemId;
+  public String getLogMessage() {
+    return logMessage == null ? null : new String(logMessage, StandardCharsets.UTF_8);
   }
 
-  public void setItemId(Long itemId) {
-    this.itemId = itemId;
+  @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+  public long getItemId() {
+    return itemId;
   }
 
-  public Long getLaunchId() {
+  @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+  public long getLaunchId() {
     return launchId;
   }
 
-  public void setLaunchId(Long launchId) {
-    this.launchId = launchId;
-  }
-
-  public Long getProjectId() {
+  @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+  public long getProjectId() {
     return projectId;
   }
 
-  public void setProjectId(Long projectId) {
-    this.projectId = projectId;
+  private static long orNoId(Long id) {
+    return id == null ? NO_ID : id;
   }
 
-  @Override
-  public boolean equals(Object o) {
-    if (this == o) {
-      return true;
+  /**
+   * Converts time to epoch microseconds in UTC, truncating nanoseconds.
+   */
+  public static long toMicros(LocalDateTime time) {
+    if (time == null) {
+      return NO_TIME;
     }
-    if (o == null || getClass() != o.getClass()) {
-      return false;
-    }
-    LogMessage that = (LogMessage) o;
-    return Objects.equals(id, that.id) && Objects.equals(logTime, that.logTime)
-        && Objects.equals(logMessage, that.logMessage) && Objects.equals(itemId, that.itemId)
-        && Objects.equals(launchId, that.launchId) && Objects.equals(projectId, that.projectId);
-  }
-
-  @Override
-  public int hashCode() {
-    return Objects.hash(id, logTime, logMessage, itemId, launchId, projectId);
+    return time.toEpochSecond(ZoneOffset.UTC) * MICROS_PER_SECOND + time.getNano() / 1_000;
   }
 }
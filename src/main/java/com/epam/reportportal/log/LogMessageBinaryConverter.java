@@ -0,0 +1,153 @@
+package com.epam.reportportal.log;
+
+import static com.epam.reportportal.log.LogMessage.NO_ID;
+import static com.epam.reportportal.log.LogMessage.NO_TIME;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+/**
+ * Compact binary converter of {@link LogMessage}, used for messages with
+ * {@link #CONTENT_TYPE} content type.
+ *
+ * <p>A message starts with a format version and a byte of flags marking present fields, followed
+ * by the present fields in order: id, log time as zigzag varint of epoch microseconds in UTC,
+ * message as varint length and UTF-8 bytes, item id, launch id and project id. Ids are unsigned
+ * varints. The message is copied as is, without decoding.
+ */
+public class LogMessageBinaryConverter implements MessageConverter {
+
+  public static final String CONTENT_TYPE = "application/x-reportportal-log-message";
+
+  private static final byte VERSION = 1;
+  private static final int ID = 1;
+  private static final int LOG_TIME = 1 << 1;
+  private static final int MESSAGE = 1 << 2;
+  private static final int ITEM_ID = 1 << 3;
+  private static final int LAUNCH_ID = 1 << 4;
+  private static final int PROJECT_ID = 1 << 5;
+
+  @Override
+  public Message toMessage(Object object, MessageProperties messageProperties) {
+    if (!(object instanceof LogMessage logMessage)) {
+      throw new MessageConversionException(
+          "Only LogMessage is supported, got " + (object == null ? null : object.getClass()));
+    }
+    messageProperties.setContentType(CONTENT_TYPE);
+    byte[] body = encode(logMessage);
+    messageProperties.setContentLength(body.length);
+    return new Message(body, messageProperties);
+  }
+
+  @Override
+  public Object fromMessage(Message message) {
+    return decode(message.getBody());
+  }
+
+  static byte[] encode(LogMessage logMessage) {
+    byte[] message = logMessage.getLogMessageBytes();
+    long micros = logMessage.getLogTimeMicros();
+    ByteArrayOutputStream out = new ByteArrayOutputStream(
+        32 + (message == null ? 0 : message.length));
+    out.write(VERSION);
+    out.write(flag(logMessage.getId() != NO_ID, ID) | flag(micros != NO_TIME, LOG_TIME)
+        | flag(message != null, MESSAGE) | flag(logMessage.getItemId() != NO_ID, ITEM_ID)
+        | flag(logMessage.getLaunchId() != NO_ID, LAUNCH_ID)
+        | flag(logMessage.getProjectId() != NO_ID, PROJECT_ID));
+    if (logMessage.getId() != NO_ID) {
+      writeVarLong(out, logMessage.getId());
+    }
+    if (micros != NO_TIME) {
+      writeVarLong(out, (micros << 1) ^ (micros >> 63));
+    }
+    if (message != null) {
+      writeVarLong(out, message.length);
+      out.write(message, 0, message.length);
+    }
+    if (logMessage.getItemId() != NO_ID) {
+      writeVarLong(out, logMessage.getItemId());
+    }
+    if (logMessage.getLaunchId() != NO_ID) {
+      writeVarLong(out, logMessage.getLaunchId());
+    }
+    if (logMessage.getProjectId() != NO_ID) {
+      writeVarLong(out, logMessage.getProjectId());
+    }
+    return out.toByteArray();
+  }
+
+  static LogMessage decode(byte[] body) {
+    Reader reader = new Reader(body);
+    int version = reader.readByte();
+    if (version != VERSION) {
+      throw new MessageConversionException("Unsupported log message format version " + version);
+    }
+    int flags = reader.readByte();
+    long id = (flags & ID) != 0 ? reader.readVarLong() : NO_ID;
+    long logTimeMicros = NO_TIME;
+    if ((flags & LOG_TIME) != 0) {
+      long zigzag = reader.readVarLong();
+      logTimeMicros = (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+    byte[] message = (flags & MESSAGE) != 0 ? reader.readBytes() : null;
+    long itemId = (flags & ITEM_ID) != 0 ? reader.readVarLong() : NO_ID;
+    long launchId = (flags & LAUNCH_ID) != 0 ? reader.readVarLong() : NO_ID;
+    long projectId = (flags & PROJECT_ID) != 0 ? reader.readVarLong() : NO_ID;
+    return new LogMessage(id, logTimeMicros, message, itemId, launchId, projectId);
+  }
+
+  private static int flag(boolean present, int flag) {
+    return present ? flag : 0;
+  }
+
+  private static void writeVarLong(ByteArrayOutputStream out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private static final class Reader {
+
+    private final byte[] body;
+    private int position;
+
+    private Reader(byte[] body) {
+      this.body = body;
+    }
+
+    private int readByte() {
+      if (position >= body.length) {
+        throw new MessageConversionException("Log message is truncated");
+      }
+      return body[position++] & 0xFF;
+    }
+
+    private long readVarLong() {
+      long value = 0;
+      for (int shift = 0; shift < Long.SIZE; shift += 7) {
+        int b = readByte();
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new MessageConversionException("Log message contains malformed varint");
+    }
+
+    private byte[] readBytes() {
+      long length = readVarLong();
+      if (length < 0 || length > body.length - position) {
+        throw new MessageConversionException("Log message is truncated");
+      }
+      byte[] value = Arrays.copyOfRange(body, position, position + (int) length);
+      position += (int) length;
+      return value;
+    }
+  }
+}
@@ -1,36 +1,220 @@
 package com.epam.reportportal.log;
 
+import static com.epam.reportportal.jobs.processing.SaveLogMessageJob.BATCH_LISTENER_ENABLED;
+import static com.epam.reportportal.jobs.processing.SaveLogMessageJob.LOG_MESSAGE_SAVING_LISTENER_ID;
+
+import com.epam.reportportal.calculation.AdaptiveBatchController;
 import com.epam.reportportal.calculation.BatchProcessing;
 import com.epam.reportportal.elastic.SearchEngineClient;
+import com.epam.reportportal.elastic.SearchEngineUnavailableException;
+import com.epam.reportportal.service.MessageBus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.scheduling.concurrent.DefaultManagedTaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
 /**
  * Batch processing for log.
  *
+ * <p>When too many logs are pending, consumers of the log saving queue are paused until the
+ * backlog drops to the low-water mark, so a slow search engine doesn't exhaust the heap.
+ *
+ * <p>Besides amount, a batch is saved once its estimated bulk payload size reaches the configured
+ * limit, so a few huge logs don't produce an oversized bulk request.
+ *
+ * <p>Logs not saved because the search engine is unavailable are kept in {@link LogSpool} when it
+ * is enabled, otherwise they are published to the dead letter queue. Messages are acknowledged
+ * on receipt, so logs buffered here are lost on a crash even with the spool enabled.
+ *
+ * <p>On shutdown log consumers are stopped first, then buffered logs are saved within the
+ * configured timeout.
+ *
+ * <p>With {@link AdaptiveBatchController} configured, batch size and timeout follow the measured
+ * save latency, payload size and failures. Effective values are exposed as metrics.
+ *
  * @author <a href="mailto:maksim_antonov@epam.com">Maksim Antonov</a>
  */
 @Component
 @ConditionalOnProperty(prefix = "rp.searchengine", name = "host")
+@ConditionalOnExpression("!" + BATCH_LISTENER_ENABLED)
 public class LogProcessing extends BatchProcessing<LogMessage> {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(LogProcessing.class);
+
+  /**
+   * Approximate size of a bulk action line and document fields other than the message.
+   */
+  private static final int LOG_DOCUMENT_OVERHEAD = 128;
+
   private final SearchEngineClient searchEngineClient;
+  private final RabbitListenerEndpointRegistry listenerEndpointRegistry;
+  private final ExecutorService listenerControlExecutor;
+  private final AdaptiveBatchController batchController;
+  private final LogSpool logSpool;
+  private final MessageBus messageBus;
 
   public LogProcessing(SearchEngineClient searchEngineClient,
+      RabbitListenerEndpointRegistry listenerEndpointRegistry,
       @Value("${rp.processing.log.maxBatchSize}") int batchSize,
-      @Value("${rp.processing.log.maxBatchTimeout}") int timeout) {
-    super(batchSize, timeout, new DefaultManagedTaskScheduler());
+      @Value("${rp.processing.log.maxBatchTimeout}") int timeout,
+      @Value("${rp.processing.log.mode:SYNCHRONIZED}") Mode mode,
+      @Value("${rp.amqp.maxLogConsumer}") int maxLogConsumer,
+      @Value("${rp.processing.log.highWaterMark:0}") int highWaterMark,
+      @Value("${rp.processing.log.lowWaterMark:0}") int lowWaterMark,
+      @Value("${rp.processing.log.maxBatchBytes:0}") long maxBatchBytes,
+      @Value("${rp.processing.log.shutdownTimeout:20000}") long shutdownTimeout,
+      Optional<AdaptiveBatchController> batchController, Optional<LogSpool> logSpool,
+      MessageBus messageBus, MeterRegistry meterRegistry) {
+    super(batchSize, timeout, createScheduler(), mode, maxLogConsumer);
     this.searchEngineClient = searchEngineClient;
+    this.listenerEndpointRegistry = listenerEndpointRegistry;
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("log-backpressure-");
+    threadFactory.setDaemon(true);
+    this.listenerControlExecutor = Executors.newSingleThreadExecutor(threadFactory);
+    setWaterMarks(highWaterMark, lowWaterMark);
+    setWeigher(LogProcessing::estimateBytes, maxBatchBytes);
+    setShutdownTimeout(shutdownTimeout);
+    this.batchController = batchController.orElse(null);
+    this.logSpool = logSpool.orElse(null);
+    this.messageBus = messageBus;
+    if (this.logSpool != null) {
+      LOGGER.warn("Log spool is enabled with auto-ack log listener, buffered logs are lost on a "
+          + "crash. Enable rp.processing.log.listener.batch to ack logs only once they are saved");
+    }
+    if (this.batchController != null) {
+      setBatchSize(this.batchController.getBatchSize());
+      setTimeout(this.batchController.getTimeout());
+    }
+    Gauge.builder("rp.processing.log.batch.size", this, BatchProcessing::getBatchSize)
+        .description("Effective amount of logs that triggers saving")
+        .register(meterRegistry);
+    Gauge.builder("rp.processing.log.batch.timeout", this, BatchProcessing::getTimeout)
+        .description("Effective max time in milliseconds a log waits for saving")
+        .register(meterRegistry);
+  }
+
+  private static ThreadPoolTaskScheduler createScheduler() {
+    ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    scheduler.setThreadNamePrefix("log-batch-");
+    scheduler.setDaemon(true);
+    scheduler.initialize();
+    return scheduler;
   }
 
   @Override
   protected void process(List<LogMessage> logMessageList) {
-    if (!CollectionUtils.isEmpty(logMessageList)) {
+    if (CollectionUtils.isEmpty(logMessageList)) {
+      return;
+    }
+    try {
+      save(logMessageList);
+    } catch (SearchEngineUnavailableException e) {
+      List<LogMessage> unsavedLogs = e.getUnsavedLogs();
+      if (logSpool == null || !logSpool.append(unsavedLogs)) {
+        messageBus.publishDeadLetterLogs(unsavedLogs);
+      }
+    }
+  }
+
+  private void save(List<LogMessage> logMessageList) {
+    if (batchController == null) {
+      searchEngineClient.save(logMessageList);
+      return;
+    }
+    long start = System.nanoTime();
+    boolean failed = true;
+    try {
       searchEngineClient.save(logMessageList);
+      failed = false;
+    } finally {
+      batchController.onBatchProcessed(logMessageList.size(), estimateBytes(logMessageList),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), failed);
+      setBatchSize(batchController.getBatchSize());
+      setTimeout(batchController.getTimeout());
     }
   }
+
+  private static long estimateBytes(List<LogMessage> logMessageList) {
+    long bytes = 0;
+    for (LogMessage logMessage : logMessageList) {
+      bytes += estimateBytes(logMessage);
+    }
+    return bytes;
+  }
+
+  private static long estimateBytes(LogMessage logMessage) {
+    byte[] message = logMessage.getLogMessageBytes();
+    return message == null ? LOG_DOCUMENT_OVERHEAD : LOG_DOCUMENT_OVERHEAD + message.length;
+  }
+
+  /**
+   * Pausing is done asynchronously, because stopping the container waits for its consumers and
+   * this method is called from one of them.
+   */
+  @Override
+  protected void onHighWaterMark() {
+    listenerControlExecutor.execute(() -> getListenerContainer().ifPresent(container -> {
+      LOGGER.warn("{} logs are pending, pausing log consumers", getPending());
+      container.stop();
+    }));
+  }
+
+  /**
+   * Resuming is skipped if shutdown began after the signal, so consumers stopped for draining
+   * are not started again.
+   */
+  @Override
+  protected void onLowWaterMark() {
+    listenerControlExecutor.execute(() -> getListenerContainer().ifPresent(container -> {
+      if (isDraining() || !isRunning()) {
+        return;
+      }
+      LOGGER.info("{} logs are pending, resuming log consumers", getPending());
+      container.start();
+    }));
+  }
+
+  /**
+   * Consumers are stopped on the listener control thread, after any queued pause or resume.
+   */
+  @Override
+  protected void beforeDrain() {
+    try {
+      listenerControlExecutor.submit(
+          () -> getListenerContainer().ifPresent(MessageListenerContainer::stop)).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      LOGGER.warn("Failed to stop log consumers", e.getCause());
+    }
+    LOGGER.info("Log consumers are stopped, saving {} pending logs", getPending());
+  }
+
+  @Override
+  protected void afterDrain() {
+    listenerControlExecutor.shutdown();
+    if (getScheduler() instanceof ThreadPoolTaskScheduler scheduler) {
+      scheduler.shutdown();
+    }
+  }
+
+  private Optional<MessageListenerContainer> getListenerContainer() {
+    return Optional.ofNullable(
+        listenerEndpointRegistry.getListenerContainer(LOG_MESSAGE_SAVING_LISTENER_ID));
+  }
 }
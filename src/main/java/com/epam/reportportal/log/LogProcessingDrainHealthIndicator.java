@@ -0,0 +1,30 @@
+package com.epam.reportportal.log;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the service out of service while buffered logs are being saved on shutdown. Included
+ * into the readiness group, so no traffic is routed to an instance that is draining.
+ */
+@Component
+public class LogProcessingDrainHealthIndicator implements HealthIndicator {
+
+  private final ObjectProvider<LogProcessing> logProcessing;
+
+  public LogProcessingDrainHealthIndicator(ObjectProvider<LogProcessing> logProcessing) {
+    this.logProcessing = logProcessing;
+  }
+
+  @Override
+  public Health health() {
+    LogProcessing processing = logProcessing.getIfAvailable();
+    if (processing == null) {
+      return Health.up().build();
+    }
+    Health.Builder builder = processing.isDraining() ? Health.outOfService() : Health.up();
+    return builder.withDetail("pending", processing.getPending()).build();
+  }
+}
@@ -0,0 +1,338 @@
+package com.epam.reportportal.log;
+
+import static com.epam.reportportal.log.LogMessage.NO_ID;
+import static com.epam.reportportal.log.LogMessage.NO_TIME;
+
+import com.epam.reportportal.elastic.SearchEngineClient;
+import com.epam.reportportal.elastic.SearchEngineUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local on-disk spool for logs that could not be saved because the search engine is unavailable.
+ *
+ * <p>Batches are appended to segment files with {@link FileChannel} and forced to disk before
+ * {@link #append(List)} returns, so the messages they came from can be acknowledged. Each batch is
+ * framed as {@code [length][crc32][payload]}, a torn frame left by a crash ends its segment.
+ *
+ * <p>Segments are replayed into {@link SearchEngineClient#save(List)} oldest first, and deleted
+ * once all their batches are saved. Replay stops at the first batch that fails and resumes from it
+ * on the next run, so logs are saved at least once. Replay runs on a dedicated scheduler thread,
+ * so long-running scheduled jobs don't delay it.
+ *
+ * <p>The spool is not a write-ahead log: only logs that failed to save are written to it. Logs are
+ * safe from a crash only with the manual-ack batch listener, which is the default when the spool
+ * is enabled. With the auto-ack listener, logs buffered by {@link LogProcessing} are lost on a
+ * crash.
+ */
+@Component
+@ConditionalOnProperty(prefix = "rp.searchengine", name = "host")
+@ConditionalOnExpression("${rp.processing.log.spool.enabled:false}")
+public class LogSpool {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LogSpool.class);
+
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".spool";
+  private static final String CORRUPTED_SUFFIX = ".corrupted";
+  private static final int FRAME_HEADER_SIZE = Integer.BYTES * 2;
+
+  private final SearchEngineClient searchEngineClient;
+  private final Path directory;
+  private final long segmentSize;
+  private final long maxSize;
+  private final long replayInterval;
+  private final ThreadPoolTaskScheduler replayScheduler;
+  private long size;
+  private long nextSegmentNumber;
+  private FileChannel activeSegment;
+  private Path replaySegment;
+  private long replayPosition;
+
+  /**
+   * @param searchEngineClient Client to replay spooled logs with
+   * @param directory          Directory of segment files
+   * @param segmentSize        Size in bytes a segment is closed at
+   * @param maxSize            Total size in bytes of segments the spool is limited with
+   * @param replayInterval     Delay in milliseconds between replays
+   */
+  public LogSpool(SearchEngineClient searchEngineClient,
+      @Value("${rp.processing.log.spool.directory:spool/logs}") String directory,
+      @Value("${rp.processing.log.spool.segmentSize:67108864}") long segmentSize,
+      @Value("${rp.processing.log.spool.maxSize:1073741824}") long maxSize,
+      @Value("${rp.processing.log.spool.replayInterval:30000}") long replayInterval)
+      throws IOException {
+    this.searchEngineClient = searchEngineClient;
+    this.directory = Paths.get(directory);
+    this.segmentSize = segmentSize;
+    this.maxSize = maxSize;
+    this.replayInterval = replayInterval;
+    this.replayScheduler = new ThreadPoolTaskScheduler();
+    this.replayScheduler.setThreadNamePrefix("log-spool-replay-");
+    this.replayScheduler.setDaemon(true);
+    Files.createDirectories(this.directory);
+    for (Path segment : listSegments()) {
+      size += Files.size(segment);
+      nextSegmentNumber = Math.max(nextSegmentNumber, segmentNumber(segment) + 1);
+    }
+    if (size > 0) {
+      LOGGER.info("Found {} bytes of spooled logs in {}", size, this.directory);
+    }
+  }
+
+  @PostConstruct
+  public void scheduleReplay() {
+    replayScheduler.initialize();
+    replayScheduler.scheduleWithFixedDelay(this::replay, Duration.ofMillis(replayInterval));
+  }
+
+  @PreDestroy
+  public void stopReplay() {
+    replayScheduler.shutdown();
+  }
+
+  /**
+   * Appends logs to the active segment and forces them to disk.
+   *
+   * @param logMessages Logs to spool
+   * @return {@code false} if logs were not spooled because the spool is full or can't be written
+   */
+  public synchronized boolean append(List<LogMessage> logMessages) {
+    if (logMessages.isEmpty()) {
+      return true;
+    }
+    try {
+      byte[] payload = encode(logMessages);
+      if (size + FRAME_HEADER_SIZE + payload.length > maxSize) {
+        LOGGER.error("Log spool is full, {} logs were not spooled", logMessages.size());
+        return false;
+      }
+      CRC32 crc = new CRC32();
+      crc.update(payload);
+      ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + payload.length)
+          .putInt(payload.length)
+          .putInt((int) crc.getValue())
+          .put(payload)
+          .flip();
+      FileChannel segment = getActiveSegment();
+      while (frame.hasRemaining()) {
+        segment.write(frame);
+      }
+      segment.force(false);
+      size += frame.limit();
+      if (segment.position() >= segmentSize) {
+        closeActiveSegment();
+      }
+      return true;
+    } catch (IOException e) {
+      LOGGER.error("Failed to spool {} logs", logMessages.size(), e);
+      return false;
+    }
+  }
+
+  /**
+   * Replays spooled logs into the search engine, oldest segment first.
+   */
+  public void replay() {
+    List<Path> segments;
+    synchronized (this) {
+      try {
+        closeActiveSegment();
+        segments = listSegments();
+      } catch (IOException e) {
+        LOGGER.error("Failed to list spool segments", e);
+        return;
+      }
+    }
+    for (Path segment : segments) {
+      try {
+        if (!replaySegment(segment)) {
+          return;
+        }
+      } catch (IOException e) {
+        LOGGER.error("Failed to replay spool segment {}", segment, e);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Replays batches of the segment starting from the position the previous replay stopped at, and
+   * removes the segment once it is replayed.
+   *
+   * @return {@code false} if replay of the segment stopped because logs were not saved
+   */
+  private boolean replaySegment(Path segment) throws IOException {
+    if (!segment.equals(replaySegment)) {
+      replaySegment = segment;
+      replayPosition = 0;
+    }
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+      channel.position(replayPosition);
+      ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+      while (readFully(channel, header.clear())) {
+        int length = header.getInt(0);
+        int checksum = header.getInt(Integer.BYTES);
+        if (length < 0 || length > channel.size() - channel.position()) {
+          LOGGER.warn("Spool segment {} ends with a torn frame at {}", segment, replayPosition);
+          break;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(channel, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        if ((int) crc.getValue() != checksum) {
+          LOGGER.error("Spool segment {} is corrupted at {}, keeping it aside", segment,
+              replayPosition);
+          channel.close();
+          release(segment, segment.resolveSibling(segment.getFileName() + CORRUPTED_SUFFIX));
+          return true;
+        }
+        List<LogMessage> logMessages = decode(payload.array());
+        try {
+          searchEngineClient.save(logMessages);
+        } catch (SearchEngineUnavailableException e) {
+          LOGGER.warn("Replay of spooled logs stopped: {}", e.getMessage());
+          return false;
+        }
+        replayPosition = channel.position();
+      }
+    }
+    release(segment, null);
+    return true;
+  }
+
+  /**
+   * Deletes replayed segment or moves it to the target path.
+   */
+  private void release(Path segment, Path target) throws IOException {
+    long segmentFileSize = Files.size(segment);
+    if (target == null) {
+      Files.delete(segment);
+    } else {
+      Files.move(segment, target);
+    }
+    replaySegment = null;
+    synchronized (this) {
+      size -= segmentFileSize;
+    }
+  }
+
+  private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private FileChannel getActiveSegment() throws IOException {
+    if (activeSegment == null) {
+      Path segment = directory.resolve(
+          String.format("%s%020d%s", SEGMENT_PREFIX, nextSegmentNumber++, SEGMENT_SUFFIX));
+      activeSegment = FileChannel.open(segment, StandardOpenOption.CREATE_NEW,
+          StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    return activeSegment;
+  }
+
+  private void closeActiveSegment() throws IOException {
+    if (activeSegment != null) {
+      activeSegment.close();
+      activeSegment = null;
+    }
+  }
+
+  private List<Path> listSegments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+      }).sorted().toList();
+    }
+  }
+
+  private static long segmentNumber(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(
+        name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  static byte[] encode(List<LogMessage> logMessages) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(logMessages.size());
+      for (LogMessage logMessage : logMessages) {
+        writeLong(out, logMessage.getId());
+        out.writeBoolean(logMessage.getLogTimeMicros() != NO_TIME);
+        if (logMessage.getLogTimeMicros() != NO_TIME) {
+          out.writeLong(logMessage.getLogTimeMicros());
+        }
+        byte[] message = logMessage.getLogMessageBytes();
+        out.writeBoolean(message != null);
+        if (message != null) {
+          out.writeInt(message.length);
+          out.write(message);
+        }
+        writeLong(out, logMessage.getItemId());
+        writeLong(out, logMessage.getLaunchId());
+        writeLong(out, logMessage.getProjectId());
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  static List<LogMessage> decode(byte[] payload) throws IOException {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+      int count = in.readInt();
+      List<LogMessage> logMessages = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        long id = readLong(in);
+        long logTimeMicros = in.readBoolean() ? in.readLong() : NO_TIME;
+        byte[] message = null;
+        if (in.readBoolean()) {
+          message = new byte[in.readInt()];
+          in.readFully(message);
+        }
+        logMessages.add(
+            new LogMessage(id, logTimeMicros, message, readLong(in), readLong(in), readLong(in)));
+      }
+      return logMessages;
+    }
+  }
+
+  private static void writeLong(DataOutputStream out, long id) throws IOException {
+    out.writeBoolean(id != NO_ID);
+    if (id != NO_ID) {
+      out.writeLong(id);
+    }
+  }
+
+  private static long readLong(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readLong() : NO_ID;
+  }
+}
@@ -0,0 +1,82 @@
+package com.epam.reportportal.log;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import java.io.IOException;
+
+/**
+ * Reads a JSON string as UTF-8 bytes, encoding characters of the parser buffer directly instead
+ * of building a {@link String} and copying it with {@link String#getBytes}. Unpaired surrogates
+ * are replaced with {@code '?'}, as {@link String#getBytes} does.
+ */
+public class Utf8BytesDeserializer extends StdDeserializer<byte[]> {
+
+  private static final byte REPLACEMENT = '?';
+
+  public Utf8BytesDeserializer() {
+    super(byte[].class);
+  }
+
+  @Override
+  public byte[] deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+    if (parser.currentToken() != JsonToken.VALUE_STRING) {
+      return (byte[]) context.handleUnexpectedToken(byte[].class, parser);
+    }
+    return encode(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+  }
+
+  static byte[] encode(char[] chars, int offset, int length) {
+    int end = offset + length;
+    byte[] bytes = new byte[encodedLength(chars, offset, end)];
+    int position = 0;
+    for (int i = offset; i < end; i++) {
+      char c = chars[i];
+      if (c < 0x80) {
+        bytes[position++] = (byte) c;
+      } else if (c < 0x800) {
+        bytes[position++] = (byte) (0xC0 | c >> 6);
+        bytes[position++] = (byte) (0x80 | c & 0x3F);
+      } else if (!Character.isSurrogate(c)) {
+        bytes[position++] = (byte) (0xE0 | c >> 12);
+        bytes[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+        bytes[position++] = (byte) (0x80 | c & 0x3F);
+      } else if (isSurrogatePair(chars, i, end)) {
+        int codePoint = Character.toCodePoint(c, chars[++i]);
+        bytes[position++] = (byte) (0xF0 | codePoint >> 18);
+        bytes[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+        bytes[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+        bytes[position++] = (byte) (0x80 | codePoint & 0x3F);
+      } else {
+        bytes[position++] = REPLACEMENT;
+      }
+    }
+    return bytes;
+  }
+
+  private static int encodedLength(char[] chars, int offset, int end) {
+    int length = 0;
+    for (int i = offset; i < end; i++) {
+      char c = chars[i];
+      if (c < 0x80) {
+        length++;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (!Character.isSurrogate(c)) {
+        length += 3;
+      } else if (isSurrogatePair(chars, i, end)) {
+        length += 4;
+        i++;
+      } else {
+        length++;
+      }
+    }
+    return length;
+  }
+
+  private static boolean isSurrogatePair(char[] chars, int index, int end) {
+    return Character.isHighSurrogate(chars[index]) && index + 1 < end
+        && Character.isLowSurrogate(chars[index + 1]);
+  }
+}
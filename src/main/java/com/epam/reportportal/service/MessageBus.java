@@ -16,9 +16,11 @@
 
 package com.epam.reportportal.service;
 
+import com.epam.reportportal.log.LogMessage;
 import com.epam.reportportal.model.EmailNotificationRequest;
 import com.epam.reportportal.model.activity.ActivityEvent;
 import java.util.List;
+import org.springframework.amqp.core.Message;
 
 /**
  * MessageBus is an abstraction for dealing with events over external event-streaming system.
@@ -31,4 +33,18 @@ public interface MessageBus {
 
   void publishEmailNotificationEvents(List<EmailNotificationRequest> notifications);
 
+  /**
+   * Publishes logs that could not be saved to Search engine to the dead letter queue.
+   *
+   * @param logMessages Logs that failed permanently
+   */
+  void publishDeadLetterLogs(List<LogMessage> logMessages);
+
+  /**
+   * Publishes a log saving message that could not be converted to the dead letter queue as is.
+   *
+   * @param message Raw message
+   */
+  void publishDeadLetterMessage(Message message);
+
 }
@@ -16,15 +16,19 @@
 
 package com.epam.reportportal.service.impl;
 
+import static com.epam.reportportal.config.rabbit.BackgroundProcessingConfiguration.LOG_MESSAGE_SAVING_DLQ_ROUTING_KEY;
+import static com.epam.reportportal.config.rabbit.BackgroundProcessingConfiguration.PROCESSING_EXCHANGE_NAME;
 import static com.epam.reportportal.config.rabbit.InternalConfiguration.EXCHANGE_NOTIFICATION;
 import static com.epam.reportportal.config.rabbit.InternalConfiguration.QUEUE_EMAIL;
 
+import com.epam.reportportal.log.LogMessage;
 import com.epam.reportportal.model.EmailNotificationRequest;
 import com.epam.reportportal.model.activity.Activity;
 import com.epam.reportportal.model.activity.ActivityEvent;
 import com.epam.reportportal.service.MessageBus;
 import java.util.List;
 import java.util.Objects;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
@@ -70,4 +74,15 @@ public class MessageBusImpl implements MessageBus {
         rabbitTemplate.convertAndSend(EXCHANGE_NOTIFICATION, QUEUE_EMAIL, notification));
   }
 
+  @Override
+  public void publishDeadLetterLogs(List<LogMessage> logMessages) {
+    logMessages.forEach(logMessage -> rabbitTemplate.convertAndSend(PROCESSING_EXCHANGE_NAME,
+        LOG_MESSAGE_SAVING_DLQ_ROUTING_KEY, logMessage));
+  }
+
+  @Override
+  public void publishDeadLetterMessage(Message message) {
+    rabbitTemplate.send(PROCESSING_EXCHANGE_NAME, LOG_MESSAGE_SAVING_DLQ_ROUTING_KEY, message);
+  }
+
 }
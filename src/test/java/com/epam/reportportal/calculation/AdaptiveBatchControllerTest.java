@@ -0,0 +1,46 @@
+package com.epam.reportportal.calculation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveBatchControllerTest {
+
+  private final AdaptiveBatchController controller = new AdaptiveBatchController(100, 2100, 100,
+      2100, 500, 1000);
+
+  @Test
+  void shouldGrowAdditivelyOnFullFastBatches() {
+    controller.onBatchProcessed(100, 10, 50, false);
+    controller.onBatchProcessed(200, 10, 50, false);
+
+    assertEquals(300, controller.getBatchSize());
+    assertEquals(300, controller.getTimeout());
+  }
+
+  @Test
+  void shouldNotGrowOnIncompleteBatches() {
+    controller.onBatchProcessed(10, 10, 50, false);
+
+    assertEquals(100, controller.getBatchSize());
+    assertEquals(100, controller.getTimeout());
+  }
+
+  @Test
+  void shouldShrinkMultiplicativelyOnSlowFailedOrHeavyBatches() {
+    for (int i = 0; i < 20; i++) {
+      controller.onBatchProcessed(controller.getBatchSize(), 10, 50, false);
+    }
+    assertEquals(2100, controller.getBatchSize());
+
+    controller.onBatchProcessed(2100, 10, 700, false);
+    assertEquals(1050, controller.getBatchSize());
+
+    controller.onBatchProcessed(1050, 10, 50, true);
+    assertEquals(525, controller.getBatchSize());
+
+    controller.onBatchProcessed(525, 5000, 50, false);
+    assertEquals(262, controller.getBatchSize());
+    assertEquals(262, controller.getTimeout());
+  }
+}
@@ -0,0 +1,324 @@
+package com.epam.reportportal.calculation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.epam.reportportal.calculation.BatchProcessing.Mode;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+
+class BatchProcessingTest {
+
+  @ParameterizedTest
+  @EnumSource(Mode.class)
+  void shouldProcessFullBatch(Mode mode) throws InterruptedException {
+    TestBatchProcessing processing = new TestBatchProcessing(3, 60_000, mode, 1);
+    processing.start();
+
+    IntStream.range(0, 3).forEach(processing::add);
+
+    assertTrue(processing.latch.await(5, TimeUnit.SECONDS));
+    assertEquals(List.of(List.of(0, 1, 2)), processing.batches);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Mode.class)
+  void shouldProcessIncompleteBatchOnTimeout(Mode mode) throws InterruptedException {
+    TestBatchProcessing processing = new TestBatchProcessing(100, 50, mode, 1);
+    processing.start();
+
+    processing.add(1);
+
+    assertTrue(processing.latch.await(5, TimeUnit.SECONDS));
+    assertEquals(List.of(List.of(1)), processing.batches);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Mode.class)
+  void shouldProcessElementsAddedBeforeStartOnceStarted(Mode mode) throws InterruptedException {
+    TestBatchProcessing processing = new TestBatchProcessing(100, 50, mode, 1);
+
+    processing.add(1);
+    Thread.sleep(200);
+    assertTrue(processing.batches.isEmpty());
+
+    processing.start();
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (processing.batches.isEmpty() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(List.of(List.of(1)), processing.batches);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Mode.class)
+  void shouldProcessBatchReachingMaxWeight(Mode mode) throws InterruptedException {
+    TestBatchProcessing processing = new TestBatchProcessing(100, 60_000, mode, 1);
+    processing.start();
+    processing.setWeigher(Integer::longValue, 10);
+
+    processing.add(4);
+    processing.add(7);
+
+    assertTrue(processing.latch.await(5, TimeUnit.SECONDS));
+    assertEquals(List.of(List.of(4, 7)), processing.batches);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Mode.class)
+  void shouldWeighEachElementOnce(Mode mode) throws InterruptedException {
+    TestBatchProcessing processing = new TestBatchProcessing(100, 60_000, mode, 1);
+    processing.start();
+    AtomicInteger weighed = new AtomicInteger();
+    processing.setWeigher(element -> {
+      weighed.incrementAndGet();
+      return element;
+    }, 10);
+
+    processing.add(4);
+    processing.add(7);
+
+    assertTrue(processing.latch.await(5, TimeUnit.SECONDS));
+    assertEquals(List.of(List.of(4, 7)), processing.batches);
+    assertEquals(2, weighed.get());
+  }
+
+  @Test
+  void shouldLingerElementsLeftAfterPartialBatchFromTheirAddTime() throws InterruptedException {
+    TestBatchProcessing processing = new TestBatchProcessing(10, 1_000, Mode.SYNCHRONIZED, 1);
+    processing.start();
+    long start = System.nanoTime();
+
+    processing.add(0);
+    Thread.sleep(600);
+    processing.add(1);
+    processing.add(2);
+    processing.setBatchSize(2);
+    processing.add(3);
+    assertEquals(List.of(List.of(0, 1)), processing.batches);
+
+    // the oldest element left was added 600 ms after the first one, so it lingers until 1600 ms
+    Thread.sleep(Math.max(0, 1_300 - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+    assertEquals(List.of(List.of(0, 1)), processing.batches);
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (processing.batches.size() < 2 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(List.of(List.of(0, 1), List.of(2, 3)), processing.batches);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Mode.class)
+  void shouldProcessBufferedElementsOnStop(Mode mode) {
+    TestBatchProcessing processing = new TestBatchProcessing(100, 60_000, mode, 1);
+    processing.start();
+
+    processing.add(1);
+    processing.add(2);
+    processing.stop();
+
+    assertFalse(processing.isRunning());
+    assertFalse(processing.isDraining());
+    assertEquals(List.of(List.of(1, 2)), processing.batches);
+  }
+
+  @Test
+  void shouldSkipAfterDrainWhileBatchIsStillProcessed() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger cleanups = new AtomicInteger();
+    BatchProcessing<Integer> processing = new BatchProcessing<>(1, 60_000,
+        new ConcurrentTaskScheduler(Executors.newSingleThreadScheduledExecutor()), Mode.STRIPED,
+        1) {
+      @Override
+      protected void process(List<Integer> objectList) {
+        // like a bulk request, the batch doesn't react to interruption
+        boolean done = false;
+        while (!done) {
+          try {
+            done = release.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            // keep processing
+          }
+        }
+      }
+
+      @Override
+      protected void afterDrain() {
+        cleanups.incrementAndGet();
+      }
+    };
+    processing.setShutdownTimeout(50);
+    processing.start();
+
+    processing.add(1);
+    processing.stop();
+    release.countDown();
+
+    assertEquals(0, cleanups.get());
+    assertFalse(processing.isDraining());
+  }
+
+  @Test
+  void shouldInterruptFlusherOnceShutdownTimeoutElapses() {
+    AtomicInteger cleanups = new AtomicInteger();
+    List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+    BatchProcessing<Integer> processing = new BatchProcessing<>(1, 60_000,
+        new ConcurrentTaskScheduler(Executors.newSingleThreadScheduledExecutor()), Mode.STRIPED,
+        1) {
+      @Override
+      protected void process(List<Integer> objectList) {
+        batches.add(List.copyOf(objectList));
+        try {
+          Thread.sleep(60_000);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      @Override
+      protected void afterDrain() {
+        cleanups.incrementAndGet();
+      }
+    };
+    processing.setShutdownTimeout(50);
+    processing.start();
+
+    processing.add(1);
+    processing.add(2);
+    processing.stop();
+
+    // the interrupted flusher stops draining, so the resources can be released
+    assertEquals(1, batches.size());
+    assertEquals(1, cleanups.get());
+  }
+
+  @ParameterizedTest
+  @EnumSource(Mode.class)
+  void shouldNotLoseElementsAddedConcurrently(Mode mode) throws InterruptedException {
+    int producers = 8;
+    int perProducer = 1000;
+    TestBatchProcessing processing = new TestBatchProcessing(300, 20, mode, producers);
+    processing.start();
+
+    List<Thread> threads = IntStream.range(0, producers)
+        .mapToObj(p -> new Thread(() -> IntStream.range(0, perProducer)
+            .forEach(i -> processing.add(p * perProducer + i))))
+        .toList();
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (processing.processed() < producers * perProducer
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(producers * perProducer, processing.processed());
+    assertTrue(processing.batches.stream().allMatch(batch -> batch.size() <= 300));
+    assertFalse(processing.overlapped);
+  }
+
+  @Test
+  void shouldSignalWaterMarks() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> signals = new CopyOnWriteArrayList<>();
+    BatchProcessing<Integer> processing = new BatchProcessing<>(2, 60_000,
+        new ConcurrentTaskScheduler(Executors.newSingleThreadScheduledExecutor()), Mode.STRIPED,
+        1) {
+      @Override
+      protected void process(List<Integer> objectList) {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      @Override
+      protected void onHighWaterMark() {
+        signals.add("high");
+      }
+
+      @Override
+      protected void onLowWaterMark() {
+        signals.add("low");
+      }
+    };
+    processing.setWaterMarks(4, 1);
+    processing.start();
+
+    IntStream.range(0, 5).forEach(processing::add);
+    assertEquals(List.of("high"), signals);
+
+    release.countDown();
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (signals.size() < 2 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(List.of("high", "low"), signals);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Mode.class)
+  void shouldNotSignalLowWaterMarkWhileDraining(Mode mode) {
+    List<String> signals = new CopyOnWriteArrayList<>();
+    TestBatchProcessing processing = new TestBatchProcessing(100, 60_000, mode, 1) {
+      @Override
+      protected void onHighWaterMark() {
+        signals.add("high");
+      }
+
+      @Override
+      protected void onLowWaterMark() {
+        signals.add("low");
+      }
+    };
+    processing.setWaterMarks(2, 0);
+    processing.start();
+
+    IntStream.range(0, 3).forEach(processing::add);
+    processing.stop();
+
+    assertEquals(List.of(List.of(0, 1, 2)), processing.batches);
+    assertEquals(List.of("high"), signals);
+  }
+
+  private static class TestBatchProcessing extends BatchProcessing<Integer> {
+
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private final AtomicInteger inProgress = new AtomicInteger();
+    private volatile boolean overlapped;
+
+    TestBatchProcessing(int batchSize, long timeout, Mode mode, int concurrency) {
+      super(batchSize, timeout,
+          new ConcurrentTaskScheduler(Executors.newSingleThreadScheduledExecutor()), mode,
+          concurrency);
+    }
+
+    @Override
+    protected void process(List<Integer> objectList) {
+      if (inProgress.incrementAndGet() > 1) {
+        overlapped = true;
+      }
+      batches.add(List.copyOf(objectList));
+      latch.countDown();
+      inProgress.decrementAndGet();
+    }
+
+    int processed() {
+      return batches.stream().mapToInt(List::size).sum();
+    }
+  }
+}
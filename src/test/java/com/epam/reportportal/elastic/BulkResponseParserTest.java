@@ -0,0 +1,46 @@
+package com.epam.reportportal.elastic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.epam.reportportal.elastic.BulkResponseParser.BulkResult;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BulkResponseParserTest {
+
+  @Test
+  void shouldStopOnResponseWithoutErrors() throws IOException {
+    BulkResult result = parse("""
+        {"took":3,"errors":false,"items":[{"create":{"_index":"idx","status":201}}]}""");
+
+    assertSame(BulkResult.SUCCESS, result);
+  }
+
+  @Test
+  void shouldSplitRetryableAndFailedItems() throws IOException {
+    BulkResult result = parse("""
+        {"took":3,"errors":true,"items":[
+          {"create":{"_index":"idx","status":201,"_shards":{"total":2}}},
+          {"create":{"_index":"idx","status":429,"error":{"type":"es_rejected_execution_exception",
+            "reason":"rejected execution"}}},
+          {"create":{"_index":"idx","status":400,"error":{"type":"mapper_parsing_exception",
+            "reason":"failed to parse","caused_by":{"type":"illegal_argument_exception"}}}},
+          {"create":{"_index":"idx","status":503,"error":{"type":"es_rejected_execution_exception",
+            "reason":"rejected execution"}}},
+          {"create":{"_index":"idx","status":201}}
+        ]}""");
+
+    assertEquals(List.of(1, 3), result.retryableItems());
+    assertEquals(List.of(2), result.failedItems());
+    assertEquals("mapper_parsing_exception: failed to parse", result.firstError());
+  }
+
+  private static BulkResult parse(String body) throws IOException {
+    return BulkResponseParser.parse(
+        new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+  }
+}
@@ -0,0 +1,84 @@
+package com.epam.reportportal.elastic;
+
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class DeleteTaskTrackerTest {
+
+  private static final String HOST = "http://localhost:9200";
+
+  @Mock
+  private RestTemplate restTemplate;
+
+  private DeleteTaskTracker tracker;
+
+  @BeforeEach
+  void setUp() {
+    tracker = new DeleteTaskTracker(HOST, restTemplate, HttpEntity::new, 1, 60000, 10);
+  }
+
+  @Test
+  void shouldStartMoreTasksThanPermitsPollingWhileWaiting() {
+    mockTask("node:1", "{\"completed\":true,\"response\":{\"deleted\":5}}");
+    mockTask("node:2", "{\"completed\":true,\"response\":{\"deleted\":7}}");
+
+    // without a scheduler polling tasks, waiting threads must free permits themselves
+    assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+      assertTrue(tracker.acquire());
+      tracker.started("node:1");
+      assertTrue(tracker.acquire());
+      tracker.started("node:2");
+      assertTrue(tracker.acquire());
+      tracker.started("node:3");
+    });
+  }
+
+  @Test
+  void shouldReleasePermitOfLostTask() {
+    when(restTemplate.exchange(eq(HOST + "/_tasks/node:1"), eq(HttpMethod.GET), any(),
+        eq(String.class))).thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND,
+        "Not Found", null, null, null));
+    assertTrue(tracker.acquire());
+    tracker.started("node:1");
+
+    tracker.poll();
+
+    assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertTrue(tracker.acquire()));
+    // the permit was released by the poll, not by polling while waiting
+    verify(restTemplate).exchange(eq(HOST + "/_tasks/node:1"), eq(HttpMethod.GET), any(),
+        eq(String.class));
+  }
+
+  @Test
+  void shouldReleasePermitOfTaskFailedToStart() {
+    assertTrue(tracker.acquire());
+    tracker.release();
+
+    assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertTrue(tracker.acquire()));
+    verifyNoInteractions(restTemplate);
+  }
+
+  private void mockTask(String taskId, String task) {
+    when(restTemplate.exchange(eq(HOST + "/_tasks/" + taskId), eq(HttpMethod.GET), any(),
+        eq(String.class))).thenReturn(ResponseEntity.ok(task));
+  }
+}
@@ -0,0 +1,34 @@
+package com.epam.reportportal.elastic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.epam.reportportal.log.LogMessage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LogBulkWriterTest {
+
+  @Test
+  void shouldWriteCreateActionAndDocumentLines() throws IOException {
+    LocalDateTime logTime = LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_000_000);
+    List<LogMessage> logs = List.of(
+        new LogMessage(1L, logTime, "line \"one\"\n\tat Foo.bar()", 10L, null, 5L),
+        new LogMessage(2L, logTime, "two", null, 20L, 5L)
+    );
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    LogBulkWriter.write(logs, outputStream);
+
+    assertEquals("""
+            {"create":{}}
+            {"id":1,"message":"line \\"one\\"\\n\\tat Foo.bar()","itemId":10,"@timestamp":1714558530123}
+            {"create":{}}
+            {"id":2,"message":"two","@timestamp":1714558530123,"launchId":20}
+            """,
+        outputStream.toString(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,78 @@
+package com.epam.reportportal.elastic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class LogIndexManagerTest {
+
+  private static final String HOST = "http://localhost:9200";
+  private static final LocalDateTime LESS_THAN_DATE = LocalDateTime.of(2024, 5, 1, 0, 0);
+  // 2024-04-01T00:00:00Z and 2024-05-02T00:00:00Z
+  private static final long EXPIRED_MILLIS = 1711929600000L;
+  private static final long ACTUAL_MILLIS = 1714608000000L;
+
+  @Mock
+  private RestTemplate restTemplate;
+
+  private LogIndexManager indexManager;
+
+  @BeforeEach
+  void setUp() {
+    indexManager = new LogIndexManager(HOST, restTemplate, HttpEntity::new, Runnable::run, 10);
+  }
+
+  @Test
+  void shouldFindBackingIndicesWithExpiredLogsOnly() {
+    mockDataStream(".ds-1", ".ds-2", ".ds-3", ".ds-4", ".ds-5");
+    mockSearch("""
+        {"aggregations":{"indices":{"buckets":[
+          {"key":".ds-1","maxTime":{"value":%d},"retained":{"doc_count":0}},
+          {"key":".ds-2","maxTime":{"value":%d},"retained":{"doc_count":3}},
+          {"key":".ds-3","maxTime":{"value":%d},"retained":{"doc_count":0}},
+          {"key":".ds-5","maxTime":{"value":%d},"retained":{"doc_count":0}}
+        ]}}}""".formatted(EXPIRED_MILLIS, EXPIRED_MILLIS, ACTUAL_MILLIS, EXPIRED_MILLIS));
+
+    List<String> expired = indexManager.findExpiredBackingIndices(1L, LESS_THAN_DATE, List.of(7L));
+
+    assertEquals(List.of(".ds-1", ".ds-4"), expired);
+  }
+
+  @Test
+  void shouldNotFindWriteIndex() {
+    mockDataStream(".ds-1");
+
+    assertEquals(List.of(), indexManager.findExpiredBackingIndices(1L, LESS_THAN_DATE, List.of()));
+  }
+
+  private void mockDataStream(String... indices) {
+    StringBuilder body = new StringBuilder("{\"data_streams\":[{\"name\":\"")
+        .append(LogIndexManager.indexName(1L)).append("\",\"indices\":[");
+    for (int i = 0; i < indices.length; i++) {
+      body.append(i == 0 ? "" : ",").append("{\"index_name\":\"").append(indices[i]).append("\"}");
+    }
+    body.append("]}]}");
+    when(restTemplate.exchange(eq(HOST + "/_data_stream/" + LogIndexManager.indexName(1L)),
+        eq(HttpMethod.GET), any(), eq(String.class)))
+        .thenReturn(ResponseEntity.ok(body.toString()));
+  }
+
+  private void mockSearch(String body) {
+    when(restTemplate.exchange(eq(HOST + "/" + LogIndexManager.indexName(1L) + "/_search"),
+        eq(HttpMethod.POST), any(), eq(String.class))).thenReturn(ResponseEntity.ok(body));
+  }
+}
@@ -0,0 +1,57 @@
+package com.epam.reportportal.elastic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.StreamingHttpOutputMessage;
+
+class RequestBodyEncoderTest {
+
+  private static final byte[] BODY = "{\"create\":{}}\n{\"message\":\"log\"}\n".repeat(100)
+      .getBytes(StandardCharsets.UTF_8);
+
+  @ParameterizedTest
+  @CsvSource({"4096, 4096", "8192, 0"})
+  void shouldCompressBodyReachingThreshold(long size, long threshold) throws IOException {
+    HttpHeaders headers = new HttpHeaders();
+
+    byte[] written = write(RequestBodyEncoder.encode(body(), size, threshold, headers));
+
+    assertEquals(RequestBodyEncoder.GZIP, headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+    try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(written))) {
+      assertArrayEquals(BODY, gzip.readAllBytes());
+    }
+  }
+
+  @ParameterizedTest
+  @CsvSource({"4095, 4096", "8192, -1"})
+  void shouldWriteBodyAsIsBelowThresholdOrWhenDisabled(long size, long threshold)
+      throws IOException {
+    HttpHeaders headers = new HttpHeaders();
+
+    byte[] written = write(RequestBodyEncoder.encode(body(), size, threshold, headers));
+
+    assertFalse(headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+    assertArrayEquals(BODY, written);
+  }
+
+  private static StreamingHttpOutputMessage.Body body() {
+    return outputStream -> outputStream.write(BODY);
+  }
+
+  private static byte[] write(StreamingHttpOutputMessage.Body body) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    body.writeTo(outputStream);
+    return outputStream.toByteArray();
+  }
+}
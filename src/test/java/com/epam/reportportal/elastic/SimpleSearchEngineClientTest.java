@@ -0,0 +1,270 @@
+package com.epam.reportportal.elastic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.epam.reportportal.elastic.BulkResponseParser.BulkResult;
+import com.epam.reportportal.log.LogMessage;
+import com.epam.reportportal.service.MessageBus;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class SimpleSearchEngineClientTest {
+
+  private static final String HOST = "http://localhost:9200";
+  private static final int MAX_ATTEMPTS = 3;
+
+  @Mock
+  private RestTemplate restTemplate;
+
+  @Mock
+  private MessageBus messageBus;
+
+  private final List<String> sentBodies = Collections.synchronizedList(new ArrayList<>());
+  private ExecutorService executorService;
+
+  @AfterEach
+  void tearDown() {
+    if (executorService != null) {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldResendOnlyItemsRejectedByOverloadedCluster() {
+    SimpleSearchEngineClient client = createClient(Runnable::run, 4, RefreshPolicy.NONE);
+    mockBulkResponses(new BulkResult(List.of(1), List.of(), null), BulkResult.SUCCESS);
+
+    client.save(List.of(log(0, 1L), log(1, 1L), log(2, 1L)));
+
+    assertEquals(2, sentBodies.size());
+    assertTrue(sentBodies.get(1).contains("message-1"));
+    assertFalse(sentBodies.get(1).contains("message-0"));
+    assertFalse(sentBodies.get(1).contains("message-2"));
+    verifyNoInteractions(messageBus);
+  }
+
+  @Test
+  void shouldPublishRejectedItemsToDeadLetterQueueWithoutRetry() {
+    SimpleSearchEngineClient client = createClient(Runnable::run, 4, RefreshPolicy.NONE);
+    mockBulkResponses(new BulkResult(List.of(), List.of(2), "mapper_parsing_exception: bad"));
+    LogMessage rejected = log(2, 1L);
+
+    client.save(List.of(log(0, 1L), log(1, 1L), rejected));
+
+    assertEquals(1, sentBodies.size());
+    verify(messageBus).publishDeadLetterLogs(List.of(rejected));
+  }
+
+  @Test
+  void shouldRetryWholeRequestFailedWithTransientError() {
+    SimpleSearchEngineClient client = createClient(Runnable::run, 4, RefreshPolicy.NONE);
+    mockBulkResponses(HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE,
+        "Service Unavailable", null, null, null), BulkResult.SUCCESS);
+
+    client.save(List.of(log(0, 1L), log(1, 1L)));
+
+    assertEquals(2, sentBodies.size());
+    assertEquals(sentBodies.get(0), sentBodies.get(1));
+    verifyNoInteractions(messageBus);
+  }
+
+  @Test
+  void shouldPublishWholeRequestFailedWithNonRetryableErrorToDeadLetterQueue() {
+    SimpleSearchEngineClient client = createClient(Runnable::run, 4, RefreshPolicy.NONE);
+    mockBulkResponses(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request",
+        null, null, null));
+    List<LogMessage> logs = List.of(log(0, 1L), log(1, 1L));
+
+    client.save(logs);
+
+    assertEquals(1, sentBodies.size());
+    verify(messageBus).publishDeadLetterLogs(logs);
+  }
+
+  @Test
+  void shouldReportLogsNotSavedAfterAllAttempts() {
+    SimpleSearchEngineClient client = createClient(Runnable::run, 4, RefreshPolicy.NONE);
+    mockBulkResponses(new ResourceAccessException("Connection refused"),
+        new BulkResult(List.of(0), List.of(), null),
+        new BulkResult(List.of(0), List.of(), null));
+    LogMessage unsaved = log(0, 1L);
+
+    SearchEngineUnavailableException exception = assertThrows(
+        SearchEngineUnavailableException.class,
+        () -> client.save(List.of(unsaved, log(1, 1L))));
+
+    assertEquals(MAX_ATTEMPTS, sentBodies.size());
+    assertEquals(List.of(unsaved), exception.getUnsavedLogs());
+    // logs not saved are published to the dead letter queue by the caller
+    verify(messageBus, never()).publishDeadLetterLogs(any());
+  }
+
+  @Test
+  void shouldReportOnlyLogsOfProjectsNotSaved() {
+    executorService = Executors.newFixedThreadPool(2);
+    SimpleSearchEngineClient client = createClient(executorService::execute, 4,
+        RefreshPolicy.NONE);
+    when(restTemplate.execute(anyString(), eq(HttpMethod.PUT), any(), any()))
+        .thenAnswer(invocation -> {
+          if (invocation.<String>getArgument(0).contains(LogIndexManager.indexName(2L))) {
+            throw new ResourceAccessException("Connection refused");
+          }
+          return BulkResult.SUCCESS;
+        });
+    LogMessage unsaved = log(1, 2L);
+
+    SearchEngineUnavailableException exception = assertThrows(
+        SearchEngineUnavailableException.class,
+        () -> client.save(List.of(log(0, 1L), unsaved, log(2, 1L))));
+
+    assertEquals(List.of(unsaved), exception.getUnsavedLogs());
+  }
+
+  @Test
+  void shouldSendBulkRequestsOfProjectsInParallel() throws InterruptedException {
+    executorService = Executors.newFixedThreadPool(3);
+    SimpleSearchEngineClient client = createClient(executorService::execute, 3,
+        RefreshPolicy.NONE);
+    CountDownLatch requestsInFlight = new CountDownLatch(3);
+    AtomicBoolean parallel = new AtomicBoolean(true);
+    when(restTemplate.execute(anyString(), eq(HttpMethod.PUT), any(), any()))
+        .thenAnswer(invocation -> {
+          requestsInFlight.countDown();
+          if (!requestsInFlight.await(5, TimeUnit.SECONDS)) {
+            parallel.set(false);
+          }
+          return BulkResult.SUCCESS;
+        });
+
+    client.save(List.of(log(0, 1L), log(1, 2L), log(2, 3L)));
+
+    assertTrue(parallel.get());
+  }
+
+  @Test
+  void shouldLimitBulkRequestsInFlight() {
+    executorService = Executors.newFixedThreadPool(3);
+    SimpleSearchEngineClient client = createClient(executorService::execute, 1,
+        RefreshPolicy.NONE);
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    when(restTemplate.execute(anyString(), eq(HttpMethod.PUT), any(), any()))
+        .thenAnswer(invocation -> {
+          maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+          Thread.sleep(50);
+          inFlight.decrementAndGet();
+          return BulkResult.SUCCESS;
+        });
+
+    client.save(List.of(log(0, 1L), log(1, 2L), log(2, 3L)));
+
+    verify(restTemplate, times(3)).execute(anyString(), eq(HttpMethod.PUT), any(), any());
+    assertEquals(1, maxInFlight.get());
+  }
+
+  @Test
+  void shouldRefreshIndicesWrittenSinceLastRefresh() {
+    SimpleSearchEngineClient client = createClient(Runnable::run, 4, RefreshPolicy.NONE);
+    mockBulkResponses(BulkResult.SUCCESS);
+    client.save(List.of(log(0, 1L)));
+
+    client.refreshTouchedIndices();
+    client.refreshTouchedIndices();
+
+    verify(restTemplate).postForObject(
+        eq(HOST + "/" + LogIndexManager.indexName(1L) + "/_refresh?ignore_unavailable=true"),
+        any(), eq(String.class));
+  }
+
+  @Test
+  void shouldNotRefreshIndicesRefreshedByBulkRequests() {
+    SimpleSearchEngineClient client = createClient(Runnable::run, 4, RefreshPolicy.IMMEDIATE);
+    mockBulkResponses(BulkResult.SUCCESS);
+    client.save(List.of(log(0, 1L)));
+
+    client.refreshTouchedIndices();
+
+    verify(restTemplate).execute(
+        eq(HOST + "/" + LogIndexManager.indexName(1L) + "/_bulk?refresh=true"),
+        eq(HttpMethod.PUT), any(), any());
+    verify(restTemplate, never()).postForObject(anyString(), any(), eq(String.class));
+  }
+
+  private SimpleSearchEngineClient createClient(TaskExecutor executor, int maxInFlight,
+      RefreshPolicy refreshPolicy) {
+    return new SimpleSearchEngineClient(HOST, "", "", restTemplate, executor, maxInFlight,
+        refreshPolicy, messageBus, MAX_ATTEMPTS, 1, 10, 100, false, 4096, 65536, 2, 60000, 5000,
+        false, "7d", 3600000, 10000);
+  }
+
+  /**
+   * Answers bulk requests with the responses in order, throwing the exceptions among them.
+   * Bodies of the requests are collected to {@link #sentBodies}.
+   */
+  private void mockBulkResponses(Object... responses) {
+    Iterator<Object> iterator = List.of(responses).iterator();
+    when(restTemplate.execute(startsWith(HOST + "/" + LogIndexManager.indexName(1L) + "/_bulk"),
+        eq(HttpMethod.PUT), any(), any())).thenAnswer(invocation -> {
+          sentBodies.add(writeBody(invocation.getArgument(2)));
+          Object response = iterator.next();
+          if (response instanceof RuntimeException exception) {
+            throw exception;
+          }
+          return response;
+        });
+  }
+
+  private static String writeBody(RequestCallback callback) throws IOException {
+    ClientHttpRequest request = mock(ClientHttpRequest.class);
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    when(request.getHeaders()).thenReturn(new HttpHeaders());
+    when(request.getBody()).thenReturn(body);
+    callback.doWithRequest(request);
+    return body.toString(StandardCharsets.UTF_8);
+  }
+
+  private static LogMessage log(long id, Long projectId) {
+    return new LogMessage(id, LocalDateTime.now(), "message-" + id, 2L, 3L, projectId);
+  }
+}
@@ -0,0 +1,209 @@
+package com.epam.reportportal.jobs.clean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.epam.reportportal.jobs.clean.CleanJobCheckpoints.Checkpoint;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class BaseCleanJobTest {
+
+  private static final String JOB_NAME = "testClean";
+  private static final Duration RETENTION = Duration.ofDays(1);
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @Mock
+  private CleanJobCheckpoints checkpoints;
+
+  @Mock
+  private RetentionPolicySnapshot retentionPolicies;
+
+  private final Map<Long, Long> costs = new LinkedHashMap<>();
+  private final List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+  private final List<Long> estimated = Collections.synchronizedList(new ArrayList<>());
+  private ExecutorService executor;
+  private TestCleanJob job;
+
+  @BeforeEach
+  void setUp() {
+    // a single worker takes slices in queue order
+    executor = Executors.newSingleThreadExecutor();
+    job = new TestCleanJob(jdbcTemplate, retentionPolicies, costs, estimated);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldRequeueSliceThatRanOutOfTimeBehindOtherProjects() {
+    costs.put(1L, 1L);
+    costs.put(2L, 2L);
+    when(checkpoints.findAll(JOB_NAME)).thenReturn(Map.of());
+    AtomicBoolean firstSlice = new AtomicBoolean(true);
+
+    job.processProjects(projects(1L, 2L), schedule(Duration.ofMinutes(10)),
+        (projectId, duration, deadline) -> {
+          processed.add(projectId);
+          return projectId != 1L || !firstSlice.getAndSet(false);
+        });
+
+    assertEquals(List.of(1L, 2L, 1L), processed);
+  }
+
+  @Test
+  void shouldProcessCheapProjectsFirstAndUnfinishedBeforeThem() {
+    costs.put(1L, 100L);
+    costs.put(2L, 10L);
+    costs.put(3L, 1000L);
+    LocalDateTime cutoff = LocalDateTime.now(ZoneOffset.UTC).minus(RETENTION);
+    when(checkpoints.findAll(JOB_NAME))
+        .thenReturn(Map.of(3L, new Checkpoint(42, cutoff, false)));
+
+    job.processProjects(projects(1L, 2L, 3L), schedule(Duration.ofMinutes(10)),
+        (projectId, duration, deadline) -> processed.add(projectId));
+
+    assertEquals(List.of(3L, 2L, 1L), processed);
+    assertEquals(List.of(1L, 2L), estimated);
+  }
+
+  @Test
+  void shouldReuseEstimatedCostsInFollowingRuns() {
+    when(checkpoints.findAll(JOB_NAME)).thenReturn(Map.of());
+
+    job.processProjects(projects(1L, 2L), schedule(Duration.ofMinutes(10)),
+        (projectId, duration, deadline) -> true);
+    job.processProjects(projects(1L, 2L), schedule(Duration.ofMinutes(10)),
+        (projectId, duration, deadline) -> true);
+
+    assertEquals(List.of(1L, 2L), estimated);
+  }
+
+  @Test
+  void shouldIsolateFailureOfProject() {
+    when(checkpoints.findAll(JOB_NAME)).thenReturn(Map.of());
+
+    job.processProjects(projects(1L, 2L), schedule(Duration.ofMinutes(10)),
+        (projectId, duration, deadline) -> {
+          processed.add(projectId);
+          if (projectId == 1L) {
+            throw new IllegalStateException("Connection lost");
+          }
+          return true;
+        });
+
+    assertEquals(List.of(1L, 2L), processed);
+  }
+
+  @Test
+  void shouldNotStartSlicesOnceRunBudgetIsSpent() {
+    LocalDateTime cutoff = LocalDateTime.now(ZoneOffset.UTC).minus(RETENTION);
+    when(checkpoints.findAll(JOB_NAME)).thenReturn(Map.of(3L, new Checkpoint(42, cutoff, false),
+        4L, new Checkpoint(7, cutoff.minusDays(1), true)));
+
+    job.processProjects(projects(1L, 2L, 3L, 4L), schedule(Duration.ZERO),
+        (projectId, duration, deadline) -> processed.add(projectId));
+
+    assertEquals(List.of(), processed);
+    // postponed projects go first next run, the continued one keeps its checkpoint
+    verify(checkpoints).save(eq(JOB_NAME), eq(1L), eq(0L), any());
+    verify(checkpoints).save(eq(JOB_NAME), eq(2L), eq(0L), any());
+    verify(checkpoints, never()).save(eq(JOB_NAME), eq(3L), anyLong(), any());
+    // a project completed before starts after the key kept by its last complete run
+    verify(checkpoints).save(eq(JOB_NAME), eq(4L), eq(7L), any());
+  }
+
+  @Test
+  void shouldKeepCheckpointOfProjectStartedBeforeRunBudgetIsSpent() {
+    when(checkpoints.findAll(JOB_NAME)).thenReturn(Map.of());
+
+    job.processProjects(projects(1L, 2L), schedule(Duration.ofMillis(100)),
+        (projectId, duration, deadline) -> {
+          processed.add(projectId);
+          // the first slice spends the whole run budget
+          while (System.nanoTime() - deadline < 0) {
+            Thread.onSpinWait();
+          }
+          return false;
+        });
+
+    assertEquals(List.of(1L), processed);
+    verify(checkpoints, never()).save(eq(JOB_NAME), eq(1L), anyLong(), any());
+    verify(checkpoints).save(eq(JOB_NAME), eq(2L), eq(0L), any());
+  }
+
+  @Test
+  void shouldSkipProjectsWithoutEnoughCutoffAdvance() {
+    LocalDateTime cutoff = LocalDateTime.now(ZoneOffset.UTC).minus(RETENTION);
+    Checkpoint completed = new Checkpoint(0, cutoff, true);
+    when(checkpoints.findAll(JOB_NAME)).thenReturn(Map.of(1L, completed));
+    when(checkpoints.isSkipped(any(), any())).thenReturn(true);
+
+    job.processProjects(projects(1L), schedule(Duration.ofMinutes(10)),
+        (projectId, duration, deadline) -> processed.add(projectId));
+
+    assertEquals(List.of(), processed);
+  }
+
+  private BaseCleanJob.ProjectSchedule schedule(Duration runBudget) {
+    return new BaseCleanJob.ProjectSchedule(JOB_NAME, executor, Duration.ofMinutes(1), runBudget,
+        checkpoints);
+  }
+
+  private static ProjectRetentions projects(long... projectIds) {
+    ProjectRetentions.Builder projects = new ProjectRetentions.Builder();
+    for (long projectId : projectIds) {
+      projects.add(projectId, RETENTION);
+    }
+    return projects.build();
+  }
+
+  private static class TestCleanJob extends BaseCleanJob {
+
+    private final Map<Long, Long> costs;
+    private final List<Long> estimated;
+
+    TestCleanJob(JdbcTemplate jdbcTemplate, RetentionPolicySnapshot retentionPolicies,
+        Map<Long, Long> costs, List<Long> estimated) {
+      super(jdbcTemplate, retentionPolicies);
+      this.costs = costs;
+      this.estimated = estimated;
+    }
+
+    @Override
+    public void execute() {
+    }
+
+    @Override
+    protected long estimateCost(Long projectId, LocalDateTime cutoff, long fromKey) {
+      estimated.add(projectId);
+      return costs.getOrDefault(projectId, 0L);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.epam.reportportal.jobs.clean;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+@ExtendWith(MockitoExtension.class)
+class CleanAttachmentJobTest {
+
+  private static final int CHUNK_SIZE = 2;
+  private static final Long PROJECT_ID = 1L;
+  private static final List<Long> EXPIRED_ATTACHMENT_IDS = List.of(1L, 2L, 3L, 4L, 5L);
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @Mock
+  private CleanJobCheckpoints checkpoints;
+
+  @Mock
+  private RetentionPolicySnapshot retentionPolicies;
+
+  private CleanAttachmentJob cleanAttachmentJob;
+
+  @BeforeEach
+  void setUp() {
+    cleanAttachmentJob = new CleanAttachmentJob(jdbcTemplate, CHUNK_SIZE, checkpoints,
+        retentionPolicies, Runnable::run, Duration.ofMinutes(1), Duration.ofMinutes(10));
+    when(retentionPolicies.getProjects(BaseCleanJob.KEEP_SCREENSHOTS))
+        .thenReturn(new ProjectRetentions.Builder().add(PROJECT_ID, Duration.ofDays(1)).build());
+    when(checkpoints.findAll("cleanAttachment")).thenReturn(Map.of());
+    when(checkpoints.start(eq("cleanAttachment"), eq(PROJECT_ID), any()))
+        .thenReturn(OptionalLong.of(0));
+    // attachments are moved by the query, so the next chunk starts after the last moved id
+    when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class), eq(PROJECT_ID), any(),
+        anyLong(), eq(CHUNK_SIZE))).thenAnswer(invocation -> {
+          long lastId = invocation.getArgument(4);
+          List<Long> moved = EXPIRED_ATTACHMENT_IDS.stream().filter(id -> id > lastId)
+              .limit(CHUNK_SIZE).toList();
+          ResultSet rs = mock(ResultSet.class);
+          when(rs.getLong("moved")).thenReturn((long) moved.size());
+          when(rs.getLong("last_id"))
+              .thenReturn(moved.isEmpty() ? 0 : moved.get(moved.size() - 1));
+          return invocation.<RowMapper<?>>getArgument(1).mapRow(rs, 0);
+        });
+  }
+
+  @Test
+  void shouldMoveAttachmentsInChunksAfterLastMovedId() {
+    cleanAttachmentJob.moveAttachments();
+
+    for (long lastId : new long[] {0, 2, 4}) {
+      verify(jdbcTemplate).queryForObject(
+          argThat(query -> query.contains("ORDER BY id LIMIT ?")
+              && query.contains("INSERT INTO attachment_deletion")),
+          any(RowMapper.class), eq(PROJECT_ID), any(), eq(lastId), eq(CHUNK_SIZE));
+    }
+    verify(checkpoints).save(eq("cleanAttachment"), eq(PROJECT_ID), eq(2L), any());
+    verify(checkpoints).save(eq("cleanAttachment"), eq(PROJECT_ID), eq(4L), any());
+    verify(checkpoints).save(eq("cleanAttachment"), eq(PROJECT_ID), eq(5L), any());
+    verify(checkpoints).complete(eq("cleanAttachment"), eq(PROJECT_ID), any());
+  }
+
+  @Test
+  void shouldReloadRetentionSettingsWhenScheduledRunStarts() {
+    cleanAttachmentJob.execute();
+
+    InOrder inOrder = inOrder(retentionPolicies);
+    inOrder.verify(retentionPolicies).invalidate();
+    inOrder.verify(retentionPolicies).getProjects(BaseCleanJob.KEEP_SCREENSHOTS);
+  }
+}
@@ -0,0 +1,131 @@
+package com.epam.reportportal.jobs.clean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.epam.reportportal.jobs.clean.CleanJobCheckpoints.Checkpoint;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.OptionalLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+@ExtendWith(MockitoExtension.class)
+class CleanJobCheckpointsTest {
+
+  private static final String JOB_NAME = "cleanLog";
+  private static final Long PROJECT_ID = 1L;
+  private static final LocalDateTime CUTOFF = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  private CleanJobCheckpoints checkpoints;
+
+  @BeforeEach
+  void setUp() {
+    checkpoints = new CleanJobCheckpoints(jdbcTemplate, Duration.ofHours(1));
+  }
+
+  @Test
+  void shouldStartProjectWithoutCheckpointFromBeginning() throws SQLException {
+    mockTableExists(true);
+    ResultSet rs = mockCheckpointRow();
+    when(rs.next()).thenReturn(false);
+
+    assertEquals(OptionalLong.of(0), checkpoints.start(JOB_NAME, PROJECT_ID, CUTOFF));
+  }
+
+  @Test
+  void shouldResumeUncompletedProjectAfterLastKey() throws SQLException {
+    mockTableExists(true);
+    ResultSet rs = mockCheckpointRow();
+    when(rs.next()).thenReturn(true);
+    when(rs.getBoolean("completed")).thenReturn(false);
+    when(rs.getLong("last_key")).thenReturn(42L);
+
+    assertEquals(OptionalLong.of(42), checkpoints.start(JOB_NAME, PROJECT_ID, CUTOFF));
+  }
+
+  @Test
+  void shouldSkipCompletedProjectUntilCutoffAdvancesEnough() throws SQLException {
+    mockTableExists(true);
+    ResultSet rs = mockCheckpointRow();
+    when(rs.next()).thenReturn(true);
+    when(rs.getBoolean("completed")).thenReturn(true);
+    when(rs.getTimestamp("cutoff")).thenReturn(Timestamp.valueOf(CUTOFF));
+    when(rs.getLong("last_key")).thenReturn(7L);
+
+    assertEquals(OptionalLong.empty(),
+        checkpoints.start(JOB_NAME, PROJECT_ID, CUTOFF.plusMinutes(30)));
+    assertEquals(OptionalLong.empty(),
+        checkpoints.start(JOB_NAME, PROJECT_ID, CUTOFF.plusHours(1)));
+    // the next run starts after the key kept by the complete run
+    assertEquals(OptionalLong.of(7),
+        checkpoints.start(JOB_NAME, PROJECT_ID, CUTOFF.plusHours(1).plusSeconds(1)));
+  }
+
+  @Test
+  void shouldNeverSkipUncompletedProject() {
+    assertFalse(checkpoints.isSkipped(new Checkpoint(42, CUTOFF, false), CUTOFF));
+    assertTrue(checkpoints.isSkipped(new Checkpoint(0, CUTOFF, true), CUTOFF));
+  }
+
+  @Test
+  void shouldUpsertProgressAndCompletion() {
+    mockTableExists(true);
+    checkpoints.save(JOB_NAME, PROJECT_ID, 42L, CUTOFF);
+    checkpoints.complete(JOB_NAME, PROJECT_ID, CUTOFF);
+
+    verify(jdbcTemplate).update(anyString(), eq(JOB_NAME), eq(PROJECT_ID), eq(42L),
+        eq(Timestamp.valueOf(CUTOFF)), eq(false));
+    verify(jdbcTemplate).update(anyString(), eq(JOB_NAME), eq(PROJECT_ID), eq(0L),
+        eq(Timestamp.valueOf(CUTOFF)), eq(true));
+  }
+
+  @Test
+  void shouldProcessFromBeginningWithoutSavingWhileTableIsMissing() {
+    mockTableExists(false);
+
+    assertEquals(OptionalLong.of(0), checkpoints.start(JOB_NAME, PROJECT_ID, CUTOFF));
+    assertEquals(Map.of(), checkpoints.findAll(JOB_NAME));
+    checkpoints.save(JOB_NAME, PROJECT_ID, 42L, CUTOFF);
+    checkpoints.complete(JOB_NAME, PROJECT_ID, CUTOFF);
+
+    // the table is checked once per interval, not on every call
+    verify(jdbcTemplate).queryForObject(anyString(), eq(Boolean.class));
+    verifyNoMoreInteractions(jdbcTemplate);
+  }
+
+  private void mockTableExists(boolean exists) {
+    when(jdbcTemplate.queryForObject(argThat(query -> query.contains("to_regclass")),
+        eq(Boolean.class))).thenReturn(exists);
+  }
+
+  private ResultSet mockCheckpointRow() {
+    ResultSet rs = mock(ResultSet.class);
+    doAnswer(invocation -> invocation.<ResultSetExtractor<?>>getArgument(1).extractData(rs))
+        .when(jdbcTemplate).query(anyString(), any(ResultSetExtractor.class), eq(JOB_NAME),
+            eq(PROJECT_ID));
+    return rs;
+  }
+}
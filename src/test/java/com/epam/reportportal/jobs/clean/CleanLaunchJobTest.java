@@ -0,0 +1,169 @@
+package com.epam.reportportal.jobs.clean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.epam.reportportal.analyzer.index.IndexerServiceClient;
+import com.epam.reportportal.elastic.SearchEngineClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class CleanLaunchJobTest {
+
+  private static final int BATCH_SIZE = 2;
+  private static final Long PROJECT_ID = 1L;
+  private static final List<Long> EXPIRED_LAUNCH_IDS = List.of(1L, 2L, 3L, 4L, 5L);
+  private static final long NO_DEADLINE = System.nanoTime() + Duration.ofHours(1).toNanos();
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @Mock
+  private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  @Mock
+  private CleanLogJob cleanLogJob;
+
+  @Mock
+  private IndexerServiceClient indexerServiceClient;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private SearchEngineClient searchEngineClient;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @Mock
+  private CleanJobCheckpoints checkpoints;
+
+  @Mock
+  private RetentionPolicySnapshot retentionPolicies;
+
+  private CleanLaunchJob cleanLaunchJob;
+
+  @BeforeEach
+  void setUp() {
+    cleanLaunchJob = new CleanLaunchJob(BATCH_SIZE, jdbcTemplate, namedParameterJdbcTemplate,
+        cleanLogJob, indexerServiceClient, eventPublisher, searchEngineClient, 60000, 10000,
+        transactionManager, new SimpleMeterRegistry(), checkpoints, retentionPolicies,
+        Runnable::run, Duration.ofMinutes(1), Duration.ofMinutes(10));
+    // launch ids are not removed by the mock, so a rescan would return deleted pages again
+    when(namedParameterJdbcTemplate.queryForList(anyString(), anyMap(), eq(Long.class)))
+        .thenAnswer(invocation -> {
+          long lastId = (Long) invocation.<Map<String, Object>>getArgument(1).get("lastId");
+          return EXPIRED_LAUNCH_IDS.stream().filter(id -> id > lastId).limit(BATCH_SIZE).toList();
+        });
+  }
+
+  @Test
+  void shouldDeleteLaunchesPageByPage() {
+    when(checkpoints.start(eq("cleanLaunch"), eq(PROJECT_ID), any()))
+        .thenReturn(OptionalLong.of(0));
+    when(namedParameterJdbcTemplate.update(anyString(), anyMap())).thenReturn(BATCH_SIZE);
+
+    cleanLaunchJob.removeLaunches(PROJECT_ID, Duration.ofDays(1), NO_DEADLINE);
+
+    InOrder inOrder = inOrder(searchEngineClient);
+    inOrder.verify(searchEngineClient).deleteExpiredLogIndices(eq(PROJECT_ID), any(), anyList());
+    inOrder.verify(searchEngineClient).deleteLogsByLaunchIdsAndProjectId(List.of(1L, 2L),
+        PROJECT_ID);
+    inOrder.verify(searchEngineClient).deleteLogsByLaunchIdsAndProjectId(List.of(3L, 4L),
+        PROJECT_ID);
+    inOrder.verify(searchEngineClient).deleteLogsByLaunchIdsAndProjectId(List.of(5L),
+        PROJECT_ID);
+    inOrder.verifyNoMoreInteractions();
+  }
+
+  @Test
+  void shouldResumeAfterCheckpointWhenPreviousRunFailed() {
+    when(checkpoints.start(eq("cleanLaunch"), eq(PROJECT_ID), any()))
+        .thenReturn(OptionalLong.of(0), OptionalLong.of(2));
+    // clusters and launches of the first page, clusters of the second page, then failure
+    when(namedParameterJdbcTemplate.update(anyString(), anyMap()))
+        .thenReturn(0, BATCH_SIZE, 0)
+        .thenThrow(new DataAccessResourceFailureException("Connection lost"))
+        .thenReturn(BATCH_SIZE);
+
+    cleanLaunchJob.removeLaunches(PROJECT_ID, Duration.ofDays(1), NO_DEADLINE);
+    cleanLaunchJob.removeLaunches(PROJECT_ID, Duration.ofDays(1), NO_DEADLINE);
+
+    InOrder inOrder = inOrder(searchEngineClient);
+    inOrder.verify(searchEngineClient).deleteExpiredLogIndices(eq(PROJECT_ID), any(), anyList());
+    inOrder.verify(searchEngineClient).deleteLogsByLaunchIdsAndProjectId(List.of(1L, 2L),
+        PROJECT_ID);
+    inOrder.verify(searchEngineClient).deleteExpiredLogIndices(eq(PROJECT_ID), any(), anyList());
+    inOrder.verify(searchEngineClient).deleteLogsByLaunchIdsAndProjectId(List.of(3L, 4L),
+        PROJECT_ID);
+    inOrder.verify(searchEngineClient).deleteLogsByLaunchIdsAndProjectId(List.of(5L),
+        PROJECT_ID);
+    inOrder.verifyNoMoreInteractions();
+    verify(checkpoints).save(eq("cleanLaunch"), eq(PROJECT_ID), eq(2L), any());
+    verify(checkpoints).complete(eq("cleanLaunch"), eq(PROJECT_ID), any());
+  }
+
+  @Test
+  void shouldRetryTimedOutBatchWithReducedSize() {
+    when(checkpoints.start(eq("cleanLaunch"), eq(PROJECT_ID), any()))
+        .thenReturn(OptionalLong.of(0));
+    when(namedParameterJdbcTemplate.update(anyString(), anyMap())).thenAnswer(invocation -> {
+      Collection<?> ids = (Collection<?>) invocation.<Map<String, Object>>getArgument(1)
+          .get("ids");
+      if (ids.size() > 1) {
+        throw new QueryTimeoutException("Statement timeout",
+            new SQLException("canceling statement due to statement timeout", "57014"));
+      }
+      return ids.size();
+    });
+
+    cleanLaunchJob.removeLaunches(PROJECT_ID, Duration.ofDays(1), NO_DEADLINE);
+
+    for (Long launchId : EXPIRED_LAUNCH_IDS) {
+      verify(searchEngineClient).deleteLogsByLaunchIdsAndProjectId(List.of(launchId),
+          PROJECT_ID);
+    }
+    verify(checkpoints).save(eq("cleanLaunch"), eq(PROJECT_ID), eq(5L), any());
+    verify(checkpoints).complete(eq("cleanLaunch"), eq(PROJECT_ID), any());
+  }
+
+  @Test
+  void shouldGiveWayToOtherProjectsAfterDeadline() {
+    when(checkpoints.start(eq("cleanLaunch"), eq(PROJECT_ID), any()))
+        .thenReturn(OptionalLong.of(0));
+    when(namedParameterJdbcTemplate.update(anyString(), anyMap())).thenReturn(BATCH_SIZE);
+
+    assertFalse(cleanLaunchJob.removeLaunches(PROJECT_ID, Duration.ofDays(1), System.nanoTime()));
+
+    verify(searchEngineClient).deleteLogsByLaunchIdsAndProjectId(List.of(1L, 2L), PROJECT_ID);
+    verify(checkpoints).save(eq("cleanLaunch"), eq(PROJECT_ID), eq(2L), any());
+    verify(checkpoints, never()).complete(any(), any(), any());
+  }
+}
@@ -0,0 +1,177 @@
+package com.epam.reportportal.jobs.clean;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.epam.reportportal.analyzer.index.IndexerServiceClient;
+import com.epam.reportportal.elastic.SearchEngineClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class CleanLogJobTest {
+
+  private static final int LAUNCH_CHUNK_SIZE = 2;
+  private static final int ITEM_CHUNK_SIZE = 2;
+  private static final Long PROJECT_ID = 1L;
+  private static final List<Long> EXPIRED_LAUNCH_IDS = List.of(1L, 2L, 3L);
+  private static final List<Long> ITEM_IDS = List.of(10L, 11L, 12L);
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @Mock
+  private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  @Mock
+  private CleanAttachmentJob cleanAttachmentJob;
+
+  @Mock
+  private IndexerServiceClient indexerServiceClient;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private SearchEngineClient searchEngineClient;
+
+  @Mock
+  private CleanJobCheckpoints checkpoints;
+
+  @Mock
+  private RetentionPolicySnapshot retentionPolicies;
+
+  private CleanLogJob cleanLogJob;
+  private List<Long> launchIdsWithLogs = EXPIRED_LAUNCH_IDS;
+
+  @BeforeEach
+  void setUp() {
+    cleanLogJob = new CleanLogJob(jdbcTemplate, cleanAttachmentJob, indexerServiceClient,
+        eventPublisher, searchEngineClient, namedParameterJdbcTemplate, ITEM_CHUNK_SIZE,
+        LAUNCH_CHUNK_SIZE, new SimpleMeterRegistry(), checkpoints, retentionPolicies,
+        Runnable::run, Duration.ofMinutes(1), Duration.ofMinutes(10));
+    when(retentionPolicies.getProjects(BaseCleanJob.KEEP_LOGS))
+        .thenReturn(new ProjectRetentions.Builder().add(PROJECT_ID, Duration.ofDays(1)).build());
+    when(checkpoints.findAll("cleanLog")).thenReturn(Map.of());
+    when(namedParameterJdbcTemplate.queryForList(anyString(), anyMap(), eq(Long.class)))
+        .thenAnswer(invocation -> {
+          String query = invocation.getArgument(0);
+          Map<String, Object> params = invocation.getArgument(1);
+          if (query.contains("EXISTS")) {
+            long lastId = (Long) params.get("lastId");
+            return launchIdsWithLogs.stream().filter(id -> id > lastId)
+                .limit(LAUNCH_CHUNK_SIZE).toList();
+          }
+          if (query.contains("test_item")) {
+            return ((Collection<?>) params.get("ids")).contains(1L) ? ITEM_IDS : List.of();
+          }
+          return List.of();
+        });
+  }
+
+  @Test
+  void shouldDeleteLogsOfLaunchesWithExpiredLogsInChunks() {
+    startAfter(0);
+    mockDeletes();
+
+    cleanLogJob.removeLogs();
+
+    verify(namedParameterJdbcTemplate, times(2)).queryForList(
+        argThat(query -> query.contains("EXISTS")),
+        argThat((Map<String, ?> params) -> params.containsKey("logTime")), eq(Long.class));
+    verify(namedParameterJdbcTemplate).update(argThat(query -> query.contains("launch_id IN")),
+        argThat((Map<String, ?> params) -> List.of(1L, 2L).equals(params.get("ids"))));
+    verify(namedParameterJdbcTemplate).update(argThat(query -> query.contains("launch_id IN")),
+        argThat((Map<String, ?> params) -> List.of(3L).equals(params.get("ids"))));
+    verify(namedParameterJdbcTemplate).update(argThat(query -> query.contains("item_id IN")),
+        argThat((Map<String, ?> params) -> List.of(10L, 11L).equals(params.get("ids"))));
+    verify(namedParameterJdbcTemplate).update(argThat(query -> query.contains("item_id IN")),
+        argThat((Map<String, ?> params) -> List.of(12L).equals(params.get("ids"))));
+    verify(checkpoints).save(eq("cleanLog"), eq(PROJECT_ID), eq(2L), any());
+    verify(checkpoints).save(eq("cleanLog"), eq(PROJECT_ID), eq(3L), any());
+    verify(checkpoints).complete(eq("cleanLog"), eq(PROJECT_ID), eq(0L), any());
+  }
+
+  @Test
+  void shouldCompleteAfterLastLaunchFinishedBeforeCutoff() {
+    startAfter(0);
+    mockDeletes();
+    // launch 3 was still running at the cutoff, so it gets more expiring logs
+    when(namedParameterJdbcTemplate.queryForObject(anyString(), anyMap(), eq(Long.class)))
+        .thenAnswer(invocation ->
+            invocation.<String>getArgument(0).contains("end_time") ? 2L : 0L);
+
+    cleanLogJob.removeLogs();
+
+    verify(checkpoints).complete(eq("cleanLog"), eq(PROJECT_ID), eq(2L), any());
+  }
+
+  @Test
+  void shouldRemoveLogsFromAnalyzerAndSearchEngineOnceProjectIsDone() {
+    startAfter(0);
+    mockDeletes();
+
+    cleanLogJob.removeLogs();
+
+    verifyCleanedUp(EXPIRED_LAUNCH_IDS);
+    verify(cleanAttachmentJob).moveAttachments();
+  }
+
+  @Test
+  void shouldRemoveOnlyProcessedLaunchesFromSearchEngine() {
+    // launch 1 is retained or has no expired logs left
+    launchIdsWithLogs = List.of(2L, 3L);
+    startAfter(0);
+    mockDeletes();
+
+    cleanLogJob.removeLogs();
+
+    verifyCleanedUp(List.of(2L, 3L));
+  }
+
+  @Test
+  void shouldNotCleanUpProjectWithoutExpiredLogs() {
+    // logs of launches processed by the previous run were cleaned up by its slices
+    startAfter(3);
+
+    cleanLogJob.removeLogs();
+
+    verify(checkpoints).complete(eq("cleanLog"), eq(PROJECT_ID), eq(0L), any());
+    verifyNoInteractions(indexerServiceClient, searchEngineClient);
+  }
+
+  private void startAfter(long lastId) {
+    when(checkpoints.start(eq("cleanLog"), eq(PROJECT_ID), any()))
+        .thenReturn(OptionalLong.of(lastId));
+  }
+
+  private void mockDeletes() {
+    when(namedParameterJdbcTemplate.update(anyString(), anyMap())).thenAnswer(invocation ->
+        ((Collection<?>) invocation.<Map<String, Object>>getArgument(1).get("ids")).size());
+  }
+
+  private void verifyCleanedUp(List<Long> launchIds) {
+    verify(indexerServiceClient).removeFromIndexLessThanLogDate(eq(PROJECT_ID), any());
+    verify(searchEngineClient).deleteExpiredLogIndices(eq(PROJECT_ID), any(), any());
+    verify(searchEngineClient).deleteLogsByLaunchIdsAndProjectId(launchIds, PROJECT_ID);
+  }
+}
@@ -0,0 +1,96 @@
+package com.epam.reportportal.jobs.clean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+@ExtendWith(MockitoExtension.class)
+class RetentionPolicySnapshotTest {
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  private RetentionPolicySnapshot snapshot;
+
+  @BeforeEach
+  void setUp() {
+    snapshot = new RetentionPolicySnapshot(jdbcTemplate, Duration.ofMinutes(5));
+    doAnswer(invocation -> {
+      RowCallbackHandler handler = invocation.getArgument(1);
+      ResultSet rs = mock(ResultSet.class);
+      when(rs.getLong("id")).thenReturn(1L, 1L, 2L);
+      when(rs.getString("attribute_name")).thenReturn(BaseCleanJob.KEEP_LAUNCHES,
+          BaseCleanJob.KEEP_LOGS, BaseCleanJob.KEEP_LOGS);
+      when(rs.getString("attribute_value")).thenReturn("86400", "3600", "forever");
+      for (int i = 0; i < 3; i++) {
+        handler.processRow(rs);
+      }
+      return null;
+    }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class),
+        eq(BaseCleanJob.KEEP_LAUNCHES), eq(BaseCleanJob.KEEP_LOGS),
+        eq(BaseCleanJob.KEEP_SCREENSHOTS));
+  }
+
+  @Test
+  void shouldLoadAllAttributesWithSingleQuery() {
+    assertEquals(Map.of(1L, Duration.ofDays(1)),
+        toMap(snapshot.getProjects(BaseCleanJob.KEEP_LAUNCHES)));
+    assertEquals(Map.of(1L, Duration.ofHours(1)),
+        toMap(snapshot.getProjects(BaseCleanJob.KEEP_LOGS)));
+    assertEquals(0, snapshot.getProjects(BaseCleanJob.KEEP_SCREENSHOTS).size());
+
+    verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(), any(), any());
+  }
+
+  @Test
+  void shouldReloadAfterInvalidation() {
+    snapshot.getProjects(BaseCleanJob.KEEP_LOGS);
+    snapshot.invalidate();
+    snapshot.getProjects(BaseCleanJob.KEEP_LOGS);
+
+    verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class), any(),
+        any(), any());
+  }
+
+  @Test
+  void shouldReloadOnceTtlPasses() {
+    snapshot = new RetentionPolicySnapshot(jdbcTemplate, Duration.ZERO);
+
+    snapshot.getProjects(BaseCleanJob.KEEP_LOGS);
+    snapshot.getProjects(BaseCleanJob.KEEP_LOGS);
+
+    verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class), any(),
+        any(), any());
+  }
+
+  @Test
+  void shouldReturnSameProjectsUntilReload() {
+    assertSame(snapshot.getProjects(BaseCleanJob.KEEP_LOGS),
+        snapshot.getProjects(BaseCleanJob.KEEP_LOGS));
+  }
+
+  private static Map<Long, Duration> toMap(ProjectRetentions projects) {
+    Map<Long, Duration> result = new HashMap<>();
+    projects.forEach(result::put);
+    return result;
+  }
+}
@@ -0,0 +1,129 @@
+package com.epam.reportportal.jobs.processing;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.epam.reportportal.elastic.SearchEngineClient;
+import com.epam.reportportal.elastic.SearchEngineUnavailableException;
+import com.epam.reportportal.log.LogMessage;
+import com.epam.reportportal.log.LogSpool;
+import com.epam.reportportal.service.MessageBus;
+import com.rabbitmq.client.Channel;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+@ExtendWith(MockitoExtension.class)
+class SaveLogMessageBatchJobTest {
+
+  private static final LogMessage FIRST_LOG = new LogMessage(1L, 0L, null, 2L, 3L, 4L);
+  private static final LogMessage SECOND_LOG = new LogMessage(5L, 0L, null, 2L, 3L, 4L);
+
+  @Mock
+  private SearchEngineClient searchEngineClient;
+
+  @Mock
+  private LogSpool logSpool;
+
+  @Mock
+  private MessageConverter messageConverter;
+
+  @Mock
+  private MessageBus messageBus;
+
+  @Mock
+  private Channel channel;
+
+  private final Message firstMessage = message(7L);
+  private final Message secondMessage = message(8L);
+
+  private SaveLogMessageBatchJob job;
+
+  @BeforeEach
+  void setUp() {
+    job = new SaveLogMessageBatchJob(searchEngineClient, Optional.of(logSpool), messageConverter,
+        messageBus);
+  }
+
+  @Test
+  void shouldAckWholeBatchOnceSaved() throws IOException {
+    when(messageConverter.fromMessage(firstMessage)).thenReturn(FIRST_LOG);
+    when(messageConverter.fromMessage(secondMessage)).thenReturn(SECOND_LOG);
+
+    job.execute(List.of(firstMessage, secondMessage), channel);
+
+    verify(searchEngineClient).save(List.of(FIRST_LOG, SECOND_LOG));
+    verify(channel).basicAck(8L, true);
+    verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+  }
+
+  @Test
+  void shouldRequeueWholeBatchWhenSaveFails() throws IOException {
+    when(messageConverter.fromMessage(firstMessage)).thenReturn(FIRST_LOG);
+    when(messageConverter.fromMessage(secondMessage)).thenReturn(SECOND_LOG);
+    doThrow(new IllegalStateException("Unexpected response")).when(searchEngineClient)
+        .save(List.of(FIRST_LOG, SECOND_LOG));
+
+    job.execute(List.of(firstMessage, secondMessage), channel);
+
+    verify(channel).basicNack(8L, true, true);
+    verify(channel, never()).basicAck(anyLong(), anyBoolean());
+  }
+
+  @Test
+  void shouldAckBatchSpooledWhileSearchEngineIsUnavailable() throws IOException {
+    when(messageConverter.fromMessage(firstMessage)).thenReturn(FIRST_LOG);
+    doThrow(new SearchEngineUnavailableException("unavailable", List.of(FIRST_LOG)))
+        .when(searchEngineClient).save(List.of(FIRST_LOG));
+    when(logSpool.append(List.of(FIRST_LOG))).thenReturn(true);
+
+    job.execute(List.of(firstMessage), channel);
+
+    verify(channel).basicAck(7L, true);
+  }
+
+  @Test
+  void shouldRequeueWholeBatchWhenSpoolIsFull() throws IOException {
+    when(messageConverter.fromMessage(firstMessage)).thenReturn(FIRST_LOG);
+    doThrow(new SearchEngineUnavailableException("unavailable", List.of(FIRST_LOG)))
+        .when(searchEngineClient).save(List.of(FIRST_LOG));
+    when(logSpool.append(List.of(FIRST_LOG))).thenReturn(false);
+
+    job.execute(List.of(firstMessage), channel);
+
+    verify(channel).basicNack(7L, true, true);
+    verify(channel, never()).basicAck(anyLong(), anyBoolean());
+  }
+
+  @Test
+  void shouldDeadLetterUnconvertibleMessageAndAckBatch() throws IOException {
+    when(messageConverter.fromMessage(firstMessage))
+        .thenThrow(new MessageConversionException("Malformed log"));
+    when(messageConverter.fromMessage(secondMessage)).thenReturn(SECOND_LOG);
+
+    job.execute(List.of(firstMessage, secondMessage), channel);
+
+    verify(messageBus).publishDeadLetterMessage(firstMessage);
+    verify(searchEngineClient).save(List.of(SECOND_LOG));
+    verify(channel).basicAck(8L, true);
+  }
+
+  private static Message message(long deliveryTag) {
+    MessageProperties properties = new MessageProperties();
+    properties.setDeliveryTag(deliveryTag);
+    return new Message(new byte[0], properties);
+  }
+}
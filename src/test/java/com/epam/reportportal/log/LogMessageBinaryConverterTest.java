@@ -0,0 +1,57 @@
+package com.epam.reportportal.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+class LogMessageBinaryConverterTest {
+
+  private final LogMessageBinaryConverter converter = new LogMessageBinaryConverter();
+
+  @Test
+  void shouldConvertLogMessageBackAndForth() {
+    LogMessage logMessage = new LogMessage(123_456_789L,
+        LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_456_000), "\u00dcn\u00efcode message", 2L,
+        3L, 300L);
+
+    Message message = converter.toMessage(logMessage, new MessageProperties());
+
+    assertEquals(LogMessageBinaryConverter.CONTENT_TYPE,
+        message.getMessageProperties().getContentType());
+    assertLogMessage(logMessage, (LogMessage) converter.fromMessage(message));
+  }
+
+  @Test
+  void shouldConvertLogMessageWithoutOptionalFields() {
+    LogMessage logMessage = new LogMessage(1L, LocalDateTime.of(1965, 1, 1, 0, 0, 0, 1_000), null,
+        null, null, 4L);
+
+    Message message = converter.toMessage(logMessage, new MessageProperties());
+
+    assertLogMessage(logMessage, (LogMessage) converter.fromMessage(message));
+  }
+
+  @Test
+  void shouldRejectTruncatedMessage() {
+    byte[] body = LogMessageBinaryConverter.encode(
+        new LogMessage(1L, LocalDateTime.of(2024, 5, 1, 10, 15), "message", 2L, 3L, 4L));
+
+    assertThrows(MessageConversionException.class, () -> converter.fromMessage(
+        new Message(Arrays.copyOf(body, body.length - 4), new MessageProperties())));
+  }
+
+  private static void assertLogMessage(LogMessage expected, LogMessage actual) {
+    assertEquals(expected.getId(), actual.getId());
+    assertEquals(expected.getLogTime(), actual.getLogTime());
+    assertEquals(expected.getLogMessage(), actual.getLogMessage());
+    assertEquals(expected.getItemId(), actual.getItemId());
+    assertEquals(expected.getLaunchId(), actual.getLaunchId());
+    assertEquals(expected.getProjectId(), actual.getProjectId());
+  }
+}
@@ -0,0 +1,52 @@
+package com.epam.reportportal.log;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.epam.reportportal.config.JacksonConfiguration;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+
+class LogMessageTest {
+
+  private final ObjectMapper objectMapper = new JacksonConfiguration().objectMapper();
+
+  @Test
+  void shouldReadJsonIntoPrimitiveFields() throws JsonProcessingException {
+    LogMessage logMessage = objectMapper.readValue("""
+        {"id":1,"logTime":"2024-05-01T10:15:30.123456","logMessage":"message","itemId":null,
+        "launchId":3,"projectId":4}""", LogMessage.class);
+
+    assertEquals(1, logMessage.getId());
+    assertEquals(LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_456_000), logMessage.getLogTime());
+    assertEquals("message", logMessage.getLogMessage());
+    assertEquals(LogMessage.NO_ID, logMessage.getItemId());
+    assertEquals(3, logMessage.getLaunchId());
+    assertEquals(4, logMessage.getProjectId());
+  }
+
+  @Test
+  void shouldReadJsonMessageAsUtf8Bytes() throws JsonProcessingException {
+    LogMessage logMessage = objectMapper.readValue("""
+        {"logMessage":"a\u00e9\u4e2d\ud83d\ude00\ud800b"}""", LogMessage.class);
+
+    assertArrayEquals("a\u00e9\u4e2d\ud83d\ude00\ud800b".getBytes(StandardCharsets.UTF_8),
+        logMessage.getLogMessageBytes());
+  }
+
+  @Test
+  void shouldWriteJsonWithoutAbsentFields() throws JsonProcessingException {
+    LogMessage logMessage = new LogMessage(1L, LocalDateTime.of(2024, 5, 1, 10, 15, 30), null,
+        null, 3L, 4L);
+
+    assertEquals("""
+            {"id":1,"logTime":"2024-05-01T10:15:30","logMessage":null,"launchId":3,"projectId":4}""",
+        objectMapper.writeValueAsString(logMessage));
+    assertNull(objectMapper.readValue(objectMapper.writeValueAsString(logMessage),
+        LogMessage.class).getLogMessage());
+  }
+}
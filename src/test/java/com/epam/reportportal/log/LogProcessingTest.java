@@ -0,0 +1,106 @@
+package com.epam.reportportal.log;
+
+import static com.epam.reportportal.jobs.processing.SaveLogMessageJob.LOG_MESSAGE_SAVING_LISTENER_ID;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.epam.reportportal.calculation.BatchProcessing.Mode;
+import com.epam.reportportal.elastic.SearchEngineClient;
+import com.epam.reportportal.elastic.SearchEngineUnavailableException;
+import com.epam.reportportal.service.MessageBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class LogProcessingTest {
+
+  private static final int BATCH_SIZE = 4;
+  private static final int HIGH_WATER_MARK = 3;
+  private static final int LOW_WATER_MARK = 1;
+
+  @Mock
+  private SearchEngineClient searchEngineClient;
+
+  @Mock
+  private RabbitListenerEndpointRegistry listenerEndpointRegistry;
+
+  @Mock
+  private MessageListenerContainer container;
+
+  @Mock
+  private MessageBus messageBus;
+
+  private LogProcessing logProcessing;
+
+  @BeforeEach
+  void setUp() {
+    when(listenerEndpointRegistry.getListenerContainer(LOG_MESSAGE_SAVING_LISTENER_ID))
+        .thenReturn(container);
+    logProcessing = new LogProcessing(searchEngineClient, listenerEndpointRegistry, BATCH_SIZE,
+        60_000, Mode.SYNCHRONIZED, 1, HIGH_WATER_MARK, LOW_WATER_MARK, 0, 1_000,
+        Optional.empty(), Optional.empty(), messageBus, new SimpleMeterRegistry());
+    logProcessing.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    logProcessing.stop();
+  }
+
+  @Test
+  void shouldStopConsumersAtHighWaterMark() {
+    addLogs(HIGH_WATER_MARK);
+
+    verify(container, timeout(5_000)).stop();
+    verify(container, never()).start();
+  }
+
+  @Test
+  void shouldStartConsumersAgainAtLowWaterMark() {
+    addLogs(HIGH_WATER_MARK);
+    verify(container, timeout(5_000)).stop();
+
+    // the full batch is saved on the adding thread and the pending amount drops to 0
+    addLogs(BATCH_SIZE - HIGH_WATER_MARK);
+
+    verify(searchEngineClient).save(anyList());
+    verify(container, timeout(5_000)).start();
+    InOrder inOrder = inOrder(container);
+    inOrder.verify(container).stop();
+    inOrder.verify(container).start();
+  }
+
+  @Test
+  void shouldPublishLogsNotSavedToDeadLetterQueue() {
+    List<LogMessage> unsavedLogs = List.of(
+        new LogMessage(0L, LocalDateTime.now(), "message", 2L, 3L, 4L));
+    doThrow(new SearchEngineUnavailableException("unavailable", unsavedLogs))
+        .when(searchEngineClient).save(anyList());
+
+    addLogs(BATCH_SIZE);
+
+    verify(messageBus, timeout(5_000)).publishDeadLetterLogs(unsavedLogs);
+  }
+
+  private void addLogs(int count) {
+    LongStream.range(0, count).forEach(id -> logProcessing.add(
+        new LogMessage(id, LocalDateTime.now(), "message", 2L, 3L, 4L)));
+  }
+}
@@ -0,0 +1,106 @@
+package com.epam.reportportal.log;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+import com.epam.reportportal.elastic.SearchEngineClient;
+import com.epam.reportportal.elastic.SearchEngineUnavailableException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class LogSpoolTest {
+
+  private static final List<LogMessage> LOGS = List.of(
+      new LogMessage(1L, LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_000_000),
+          "\u00dcn\u00efcode message", 2L, 3L, 4L),
+      new LogMessage(5L, null, null, null, null, 4L));
+
+  @Mock
+  private SearchEngineClient searchEngineClient;
+
+  @Captor
+  private ArgumentCaptor<List<LogMessage>> logsCaptor;
+
+  @TempDir
+  private Path directory;
+
+  @Test
+  void shouldReplaySpooledLogsAndDeleteSegment() throws IOException {
+    LogSpool spool = createSpool();
+
+    assertTrue(spool.append(LOGS));
+    spool.replay();
+
+    verify(searchEngineClient).save(logsCaptor.capture());
+    assertLogs(LOGS, logsCaptor.getValue());
+    assertEquals(0, countFiles());
+  }
+
+  @Test
+  void shouldKeepSegmentWhileSearchEngineIsUnavailable() throws IOException {
+    LogSpool spool = createSpool();
+    doThrow(new SearchEngineUnavailableException("unavailable", LOGS))
+        .doNothing()
+        .when(searchEngineClient).save(anyList());
+
+    assertTrue(spool.append(LOGS));
+    spool.replay();
+    assertEquals(1, countFiles());
+
+    spool.replay();
+    assertEquals(0, countFiles());
+  }
+
+  @Test
+  void shouldReplaySegmentWithTornFrameLeftByCrash() throws IOException {
+    LogSpool spool = createSpool();
+    spool.append(LOGS);
+    try (Stream<Path> files = Files.list(directory)) {
+      Files.write(files.findFirst().orElseThrow(), new byte[] {0, 0, 1, 0, 42},
+          StandardOpenOption.APPEND);
+    }
+    doNothing().when(searchEngineClient).save(anyList());
+
+    createSpool().replay();
+
+    verify(searchEngineClient).save(logsCaptor.capture());
+    assertLogs(LOGS, logsCaptor.getValue());
+    assertEquals(0, countFiles());
+  }
+
+  private LogSpool createSpool() throws IOException {
+    return new LogSpool(searchEngineClient, directory.toString(), 1024, 1024 * 1024, 30000);
+  }
+
+  private static void assertLogs(List<LogMessage> expected, List<LogMessage> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertArrayEquals(LogMessageBinaryConverter.encode(expected.get(i)),
+          LogMessageBinaryConverter.encode(actual.get(i)));
+    }
+  }
+
+  private long countFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+}